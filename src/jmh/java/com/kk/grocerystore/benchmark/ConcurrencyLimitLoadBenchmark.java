@@ -0,0 +1,147 @@
+package com.kk.grocerystore.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.service.ProductService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Closed-loop HTTP overload of GET and PATCH /api/product/{id} against a
+ * slow database (product cache disabled, a simulated round-trip per
+ * statement and a small connection pool), without and with the adaptive
+ * concurrency limits. Every JMH thread is one client; raise -t to overload
+ * harder.
+ * <p>
+ * One operation is one request until it succeeds: a client that gets a 503
+ * waits for its Retry-After and tries again, so the sampled latency is what
+ * the client sees, back-offs included. Rejections, errors and the limits
+ * are printed per iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(500)
+@Fork(1)
+public class ConcurrencyLimitLoadBenchmark {
+
+	private static final int POOL_SIZE = 10;
+	private static final int CATALOG_SIZE = 10_000;
+	
+	@Param({"false", "true"})
+	private boolean limited;
+	
+	@Param({"10"})
+	private int writePercent;
+	
+	private ConfigurableApplicationContext context;
+	
+	private HttpClient http;
+	
+	private String baseUri;
+	
+	private List<Long> ids;
+	
+	private final AtomicInteger rejected = new AtomicInteger();
+	
+	private final AtomicInteger errors = new AtomicInteger();
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = EmbeddedCatalog.start("limiter-" + limited,
+				"server.port=0",
+				"grocerystore.limiter.enabled=" + limited,
+				"grocerystore.product-cache.max-size=0",
+				"grocerystore.outbox.dispatch-enabled=false",
+				"spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+				"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+						+ LatencyInjectingStatementInspector.class.getName());
+		ids = context.getBean(ProductService.class)
+					 .saveProducts(EmbeddedCatalog.products(0, CATALOG_SIZE))
+					 .stream()
+					 .map(Product::getId)
+					 .collect(Collectors.toList());
+		baseUri = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/product/";
+		http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+	}
+	
+	@TearDown(Level.Iteration)
+	public void printOutcome() {
+		System.out.printf("%nrejected=%d errors=%d limits read=%s write=%s%n",
+						  rejected.getAndSet(0), errors.getAndSet(0), limit("read"), limit("write"));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public int request() throws InterruptedException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		HttpRequest request = request(ids.get(random.nextInt(ids.size())), random);
+		while(true) {
+			HttpResponse<Void> response;
+			try {
+				response = http.send(request, HttpResponse.BodyHandlers.discarding());
+			} catch (IOException e) {
+				errors.incrementAndGet();
+				return -1;
+			}
+			if(response.statusCode() != 503) {
+				if(response.statusCode() / 100 != 2)
+					errors.incrementAndGet();
+				return response.statusCode();
+			}
+			rejected.incrementAndGet();
+			long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+			Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfter));
+		}
+	}
+	
+	private HttpRequest request(Long id, ThreadLocalRandom random) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUri + id))
+												 .timeout(Duration.ofSeconds(30));
+		if(random.nextInt(100) < writePercent)
+			builder.header("Content-Type", "application/json")
+				   .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"remainingQuantity\":" + random.nextInt(1000) + "}"));
+		return builder.build();
+	}
+	
+	private String limit(String kind) {
+		if(!limited)
+			return "-";
+		MeterRegistry registry = context.getBean(MeterRegistry.class);
+		return String.valueOf((int) registry.get("grocerystore.limiter.limit").tag("class", kind).gauge().value());
+	}
+}
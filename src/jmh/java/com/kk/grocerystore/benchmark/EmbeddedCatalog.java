@@ -0,0 +1,57 @@
+package com.kk.grocerystore.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.kk.grocerystore.GroceryStoreApplication;
+import com.kk.grocerystore.model.Product;
+
+/**
+ * Boots the application against an in-memory H2 database so benchmarks
+ * exercise the real service, repository and Hibernate configuration.
+ */
+final class EmbeddedCatalog {
+
+	private static final String[] CATEGORIES = {"MM", "FRUIT", "VEG", "BAKERY", "DRINKS"};
+	
+	private EmbeddedCatalog() {
+	}
+	
+	static ConfigurableApplicationContext start(String databaseName, String... extraProperties) {
+		List<String> properties = new ArrayList<>(List.of(
+				"spring.datasource.url=jdbc:h2:mem:" + databaseName + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+				"spring.datasource.driver-class-name=org.h2.Driver",
+				"spring.datasource.username=sa",
+				"spring.datasource.password=",
+				"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"spring.jpa.hibernate.ddl-auto=create-drop",
+				"spring.jpa.show-sql=false",
+				"logging.level.root=WARN"));
+		properties.addAll(List.of(extraProperties));
+		// as command line arguments: builder properties are only defaults and lose to application.properties
+		return new SpringApplicationBuilder(GroceryStoreApplication.class)
+				.run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+	}
+	
+	static Product product(long index) {
+		return Product.builder()
+					  .name("Product-" + index)
+					  .description("Benchmark product " + index)
+					  .category(CATEGORIES[(int) (index % CATEGORIES.length)])
+					  .initialQuantity(1000)
+					  .remainingQuantity((int) (index % 7 == 0 ? 0 : 1000))
+					  .pricePerUnit(BigDecimal.valueOf(100 + index % 900, 2))
+					  .build();
+	}
+	
+	static List<Product> products(long from, int count) {
+		List<Product> products = new ArrayList<>(count);
+		for(long i = from; i < from + count; i++)
+			products.add(product(i));
+		return products;
+	}
+}
@@ -0,0 +1,22 @@
+package com.kk.grocerystore.benchmark;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.kk.grocerystore.metrics.SqlStatementCounter;
+
+/**
+ * Stands in for a network database: every statement parks the calling
+ * thread for benchmark.db-latency-ms before H2 runs it.
+ */
+public class LatencyInjectingStatementInspector extends SqlStatementCounter {
+
+	private static final long serialVersionUID = 1L;
+	
+	private static final long LATENCY_NANOS = Long.getLong("benchmark.db-latency-ms", 5) * 1_000_000;
+	
+	@Override
+	public String inspect(String sql) {
+		LockSupport.parkNanos(LATENCY_NANOS);
+		return super.inspect(sql);
+	}
+}
@@ -0,0 +1,77 @@
+package com.kk.grocerystore.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * Rows per second created one saveProduct call at a time versus through
+ * saveProducts, which checks names in one query and inserts in JDBC
+ * batches. Both keep inserting new names, so the table grows during a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductBulkCreateBenchmark {
+
+	private static final int PRODUCT_COUNT = 1000;
+	
+	private ConfigurableApplicationContext context;
+	
+	private ProductService productService;
+	
+	private final AtomicLong nextName = new AtomicLong();
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = EmbeddedCatalog.start("bulk-create-benchmark", "grocerystore.outbox.dispatch-enabled=false");
+		productService = context.getBean(ProductService.class);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(PRODUCT_COUNT)
+	public int perItemCreate() {
+		int created = 0;
+		for(Product product : nextProducts()) {
+			productService.saveProduct(product);
+			created++;
+		}
+		return created;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(PRODUCT_COUNT)
+	public List<Product> bulkCreate() {
+		return productService.saveProducts(nextProducts());
+	}
+	
+	private List<Product> nextProducts() {
+		return EmbeddedCatalog.products(nextName.getAndAdd(PRODUCT_COUNT), PRODUCT_COUNT);
+	}
+}
@@ -0,0 +1,66 @@
+package com.kk.grocerystore.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * Create latency with the duplicate-name check answered by the name index
+ * versus a findByName per create. Every statement pays the simulated
+ * round-trip of LatencyInjectingStatementInspector (-Dbenchmark.db-latency-ms),
+ * which is what the index saves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductCreateLatencyBenchmark {
+
+	@Param({"true", "false"})
+	private boolean nameIndex;
+	
+	private ConfigurableApplicationContext context;
+	
+	private ProductService productService;
+	
+	private final AtomicLong nextName = new AtomicLong();
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = EmbeddedCatalog.start("create-latency-" + nameIndex,
+				"grocerystore.name-index.enabled=" + nameIndex,
+				"grocerystore.outbox.dispatch-enabled=false",
+				"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+						+ LatencyInjectingStatementInspector.class.getName());
+		productService = context.getBean(ProductService.class);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public Product saveProduct() {
+		return productService.saveProduct(EmbeddedCatalog.product(nextName.getAndIncrement()));
+	}
+}
@@ -0,0 +1,104 @@
+package com.kk.grocerystore.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.kk.grocerystore.model.Product;
+
+/**
+ * Encode and decode cost of product lists in the formats the list
+ * endpoints negotiate, with and without gzip as applied by
+ * server.compression. The payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductEncodingBenchmark {
+
+	@Param({"json", "smile", "cbor"})
+	private String format;
+	
+	@Param({"1000", "100000"})
+	private int size;
+	
+	private List<Product> products;
+	
+	private ObjectWriter writer;
+	
+	private ObjectReader reader;
+	
+	private byte[] encoded;
+	
+	@Setup
+	public void setUp() throws IOException {
+		products = EmbeddedCatalog.products(0, size);
+		for(int i = 0; i < products.size(); i++) {
+			products.get(i).setId((long) i);
+			products.get(i).setVersion(0L);
+		}
+		ObjectMapper objectMapper = mapper(format);
+		CollectionType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Product.class);
+		writer = objectMapper.writerFor(listType);
+		reader = objectMapper.readerFor(listType);
+		encoded = writer.writeValueAsBytes(products);
+		System.out.printf("%n%s, %d products: %d bytes, %d bytes gzipped%n",
+						  format, size, encoded.length, gzip(encoded).length);
+	}
+	
+	@Benchmark
+	public byte[] encode() throws IOException {
+		return writer.writeValueAsBytes(products);
+	}
+	
+	@Benchmark
+	public byte[] encodeGzipped() throws IOException {
+		return gzip(writer.writeValueAsBytes(products));
+	}
+	
+	@Benchmark
+	public List<Product> decode() throws IOException {
+		return reader.readValue(encoded);
+	}
+	
+	private static ObjectMapper mapper(String format) {
+		switch(format) {
+			case "smile":
+				return Jackson2ObjectMapperBuilder.smile().build();
+			case "cbor":
+				return Jackson2ObjectMapperBuilder.cbor().build();
+			default:
+				return Jackson2ObjectMapperBuilder.json().build();
+		}
+	}
+	
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+		try(GZIPOutputStream gzip = new GZIPOutputStream(out)){
+			gzip.write(bytes);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,91 @@
+package com.kk.grocerystore.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.search.ProductNameTrie;
+
+/**
+ * Autocomplete lookups on a trie of one million generated names. Setup
+ * prints the retained heap of the trie so footprint can be tracked next to
+ * the per-lookup latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ProductNameTrieBenchmark {
+
+	private static final String[] WORDS = {"organic", "fresh", "milk", "whole", "green", "apple", "bread",
+			"cheese", "tea", "coffee", "butter", "sweet", "red", "rice", "pasta", "olive", "oil", "honey"};
+	
+	@Param({"1000000"})
+	private int names;
+	
+	@Param({"1", "3", "6"})
+	private int prefixLength;
+	
+	private ProductNameTrie trie;
+	
+	private String[] prefixes;
+	
+	@Setup
+	public void setUp() {
+		Random random = new Random(7);
+		List<Product> products = new ArrayList<>(names);
+		for(long i = 0; i < names; i++) {
+			String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+			products.add(Product.builder()
+								.id(i)
+								.name(name)
+								.category("C")
+								.remainingQuantity(random.nextInt(1000))
+								.pricePerUnit(BigDecimal.ONE)
+								.build());
+		}
+		
+		long before = usedHeap();
+		trie = new ProductNameTrie();
+		trie.replaceAll(products);
+		long after = usedHeap();
+		System.out.printf("%nname trie: %d names, ~%d MB retained, ~%d bytes per name%n",
+						  names, (after - before) / 1_048_576, (after - before) / names);
+		
+		prefixes = new String[1024];
+		for(int i = 0; i < prefixes.length; i++) {
+			String name = products.get(random.nextInt(names)).getName();
+			prefixes[i] = name.substring(0, Math.min(prefixLength, name.length()));
+		}
+	}
+	
+	@Benchmark
+	public List<String> completeTop10() {
+		return trie.complete(prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)], 10).get();
+	}
+	
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,78 @@
+package com.kk.grocerystore.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.kk.grocerystore.dto.ProductPage;
+import com.kk.grocerystore.dto.ProductSummaryPage;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * One 10k-row listing page loaded as managed Product entities versus as
+ * ProductSummary constructor projections. Run with -prof gc to compare
+ * gc.alloc.rate.norm (bytes per page) next to the average time.
+ * <p>
+ * Descriptions are descriptionLength characters long; the entity path
+ * reads and keeps them, the projection never selects them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductProjectionBenchmark {
+
+	private static final int PAGE_SIZE = 10000;
+	
+	@Param({"32", "512"})
+	private int descriptionLength;
+	
+	private ConfigurableApplicationContext context;
+	
+	private ProductService productService;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = EmbeddedCatalog.start("projection-benchmark");
+		productService = context.getBean(ProductService.class);
+		String description = "x".repeat(descriptionLength);
+		List<Product> products = EmbeddedCatalog.products(0, PAGE_SIZE)
+												.stream()
+												.map(product -> product.toBuilder().description(description).build())
+												.collect(Collectors.toList());
+		productService.saveProducts(products);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public ProductPage entityPage() {
+		return productService.listProductPage(null, PAGE_SIZE, null);
+	}
+	
+	@Benchmark
+	public ProductSummaryPage summaryPage() {
+		return productService.listProductSummaryPage(null, PAGE_SIZE, null);
+	}
+}
@@ -0,0 +1,108 @@
+package com.kk.grocerystore.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.search.ProductSearchIndex;
+
+/**
+ * BM25 searches over generated names and descriptions, top 20 as served by
+ * GET /api/product/search. Sample mode reports the latency percentiles, so
+ * the tail of common terms with long posting lists shows next to the mean.
+ * <p>
+ * Words are drawn from a vocabulary of the given size, skewed towards its
+ * first words as in real text; queries are drawn the same way. With the
+ * smallest vocabulary every term matches a large part of the catalog,
+ * which is the worst case of the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ProductSearchIndexBenchmark {
+
+	private static final String[] WORDS = {"organic", "fresh", "milk", "whole", "green", "apple", "bread",
+			"cheese", "tea", "coffee", "butter", "sweet", "red", "rice", "pasta", "olive", "oil", "honey"};
+	private static final String[] CATEGORIES = {"MM", "FRUIT", "VEG", "BAKERY", "DRINKS"};
+	private static final int DESCRIPTION_WORDS = 12;
+	
+	@Param({"100000"})
+	private int catalogSize;
+	
+	@Param({"18", "10000"})
+	private int vocabulary;
+	
+	@Param({"1", "3"})
+	private int queryTerms;
+	
+	@Param({"false", "true"})
+	private boolean byCategory;
+	
+	private ProductSearchIndex index;
+	
+	private String[] words;
+	
+	private String[] queries;
+	
+	@Setup
+	public void setUp() {
+		Random random = new Random(7);
+		words = new String[vocabulary];
+		for(int w = 0; w < vocabulary; w++)
+			words[w] = w < WORDS.length ? WORDS[w] : "term" + w;
+		List<Product> products = new ArrayList<>(catalogSize);
+		for(long i = 0; i < catalogSize; i++) {
+			StringBuilder description = new StringBuilder();
+			for(int w = 0; w < DESCRIPTION_WORDS; w++)
+				description.append(word(random)).append(' ');
+			products.add(Product.builder()
+								.id(i)
+								.name(word(random) + " " + word(random) + " " + i)
+								.description(description.toString())
+								.category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+								.remainingQuantity(random.nextInt(1000))
+								.pricePerUnit(BigDecimal.ONE)
+								.build());
+		}
+		index = new ProductSearchIndex();
+		index.replaceAll(products);
+		
+		queries = new String[1024];
+		for(int i = 0; i < queries.length; i++) {
+			StringBuilder query = new StringBuilder();
+			for(int t = 0; t < queryTerms; t++)
+				query.append(word(random)).append(' ');
+			queries[i] = query.toString().trim();
+		}
+	}
+	
+	@Benchmark
+	public List<Product> searchTop20() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String category = byCategory ? CATEGORIES[random.nextInt(CATEGORIES.length)] : null;
+		return index.search(queries[random.nextInt(queries.length)], category, 20).get();
+	}
+	
+	private String word(Random random) {
+		return words[(int) (words.length * Math.pow(random.nextDouble(), 3))];
+	}
+}
@@ -0,0 +1,58 @@
+package com.kk.grocerystore.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.kk.grocerystore.model.Product;
+
+/**
+ * Jackson encoding of product lists as the controllers return them, using
+ * the same mapper defaults Spring MVC applies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	private int size;
+	
+	private List<Product> products;
+	
+	private ObjectWriter writer;
+	
+	@Setup
+	public void setUp() {
+		products = EmbeddedCatalog.products(0, size);
+		for(int i = 0; i < products.size(); i++) {
+			products.get(i).setId((long) i);
+			products.get(i).setVersion(0L);
+		}
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Product.class));
+	}
+	
+	@Benchmark
+	public byte[] serializeProductList() throws JsonProcessingException {
+		return writer.writeValueAsBytes(products);
+	}
+}
@@ -0,0 +1,81 @@
+package com.kk.grocerystore.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * Service hot paths against H2. saveProduct keeps inserting new names, so
+ * the table grows during a run; compare results of equal iteration counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+	@Param({"1000", "10000"})
+	private int catalogSize;
+	
+	private ConfigurableApplicationContext context;
+	
+	private ProductService productService;
+	
+	private List<Long> ids;
+	
+	private final AtomicLong nextName = new AtomicLong();
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = EmbeddedCatalog.start("service-benchmark");
+		productService = context.getBean(ProductService.class);
+		ids = productService.saveProducts(EmbeddedCatalog.products(0, catalogSize))
+							.stream()
+							.map(Product::getId)
+							.collect(Collectors.toList());
+		nextName.set(catalogSize);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public Product saveProduct() {
+		return productService.saveProduct(EmbeddedCatalog.product(nextName.getAndIncrement()));
+	}
+	
+	@Benchmark
+	public Object getProductById() {
+		Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+		return productService.getProductById(id);
+	}
+	
+	@Benchmark
+	public List<Product> listProduct() {
+		return productService.listProduct();
+	}
+}
@@ -0,0 +1,144 @@
+package com.kk.grocerystore.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.kk.grocerystore.dto.ProductPatch;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * Read/write mix straight against ProductRepository (bypassing the
+ * application's ProductCache). Reads are findById, findByName and category
+ * queries; writes are entity updates, stock increases and patches, each of
+ * which replaces only its own product in the second-level cache.
+ * <p>
+ * Every iteration prints the Hibernate entity and query cache hit ratios it
+ * reached next to the JMH score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class SecondLevelCacheMixBenchmark {
+
+	private static final int CATALOG_SIZE = 10_000;
+	private static final String[] CATEGORIES = {"MM", "FRUIT", "VEG", "BAKERY", "DRINKS"};
+	
+	@Param({"0", "5", "20"})
+	private int writePercent;
+	
+	private ConfigurableApplicationContext context;
+	
+	private ProductService productService;
+	
+	private ProductRepository productRepository;
+	
+	private Statistics statistics;
+	
+	private List<Long> ids;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = EmbeddedCatalog.start("second-level-cache-" + writePercent,
+				"grocerystore.outbox.dispatch-enabled=false");
+		productService = context.getBean(ProductService.class);
+		productRepository = context.getBean(ProductRepository.class);
+		ids = productService.saveProducts(EmbeddedCatalog.products(0, CATALOG_SIZE))
+							.stream()
+							.map(Product::getId)
+							.collect(Collectors.toList());
+		statistics = context.getBean(EntityManagerFactory.class)
+							.unwrap(SessionFactory.class)
+							.getStatistics();
+	}
+	
+	@Setup(Level.Iteration)
+	public void clearStatistics() {
+		statistics.clear();
+	}
+	
+	@TearDown(Level.Iteration)
+	public void printHitRatios() {
+		CacheRegionStatistics products = statistics.getDomainDataRegionStatistics(Product.CACHE_REGION);
+		System.out.printf("%nentity cache hit ratio=%.1f%% (puts=%d), query cache hit ratio=%.1f%% (puts=%d), statements=%d%n",
+						  ratio(products.getHitCount(), products.getMissCount()), products.getPutCount(),
+						  ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()),
+						  statistics.getQueryCachePutCount(), statistics.getPrepareStatementCount());
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public Object operation() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Long id = ids.get(random.nextInt(ids.size()));
+		if(random.nextInt(100) < writePercent)
+			return write(id, random);
+		return read(id, random);
+	}
+	
+	private Object read(Long id, ThreadLocalRandom random) {
+		int kind = random.nextInt(10);
+		if(kind < 7)
+			return productRepository.findById(id);
+		if(kind < 9)
+			return productRepository.findByName("Product-" + random.nextInt(CATALOG_SIZE));
+		return productRepository.findProductsByCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+	}
+	
+	private Object write(Long id, ThreadLocalRandom random) {
+		switch(random.nextInt(3)) {
+			case 0:
+				return productRepository.findById(id).map(product -> {
+					product.setPricePerUnit(BigDecimal.valueOf(100 + random.nextInt(900), 2));
+					try {
+						return productService.updateProduct(product);
+					} catch (ObjectOptimisticLockingFailureException e) {
+						// another thread wrote the product in between; the write still counts
+						return null;
+					}
+				});
+			case 1:
+				return productService.increaseStock(id, 1);
+			default:
+				return productService.patchProduct(id, ProductPatch.builder().remainingQuantity(random.nextInt(1000)).build());
+		}
+	}
+	
+	private static double ratio(long hits, long misses) {
+		return hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses);
+	}
+}
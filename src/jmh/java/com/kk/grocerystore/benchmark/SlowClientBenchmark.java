@@ -0,0 +1,141 @@
+package com.kk.grocerystore.benchmark;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.kk.grocerystore.service.ProductService;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.r2dbc.pool.ConnectionPool;
+
+/**
+ * A crowd of slow readers (clients) that each take a full catalog export a
+ * couple of kilobytes at a time, against the servlet export (NDJSON over JDBC) and the
+ * reactive export (NDJSON over R2DBC). One operation is the whole crowd
+ * being served, so single-shot mode reports how long that takes; the peak
+ * JVM threads and database connections in use during it are printed next
+ * to the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SlowClientBenchmark {
+
+	private static final long READ_DELAY_MS = 50;
+	
+	@Param({"false", "true"})
+	private boolean reactive;
+	
+	@Param({"2000"})
+	private int clients;
+	
+	@Param({"1000"})
+	private int catalogSize;
+	
+	private ConfigurableApplicationContext context;
+	
+	private int port;
+	
+	private IntSupplier connectionsInUse;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		String database = reactive ? "slow-reactive" : "slow-servlet";
+		context = reactive
+				? EmbeddedCatalog.start(database,
+						"server.port=0",
+						"spring.main.web-application-type=reactive",
+						"spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration",
+						"spring.r2dbc.url=r2dbc:h2:mem:///" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+						"spring.r2dbc.username=sa",
+						"spring.r2dbc.pool.max-size=20")
+				: EmbeddedCatalog.start(database, "server.port=0");
+		context.getBean(ProductService.class).saveProducts(EmbeddedCatalog.products(0, catalogSize));
+		port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		connectionsInUse = reactive
+				? () -> context.getBean(ConnectionPool.class).getMetrics().map(m -> m.acquiredSize()).orElse(0)
+				: () -> context.getBean(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public int serveSlowClients() throws InterruptedException {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		threads.resetPeakThreadCount();
+		AtomicInteger peakConnections = new AtomicInteger();
+		AtomicInteger completed = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		
+		// virtual client threads do not show up in the platform thread count being measured
+		ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+		for(int c = 0; c < clients; c++)
+			readers.execute(() -> {
+				if(readExport())
+					completed.incrementAndGet();
+				else
+					failed.incrementAndGet();
+			});
+		readers.shutdown();
+		while(!readers.awaitTermination(200, TimeUnit.MILLISECONDS))
+			peakConnections.accumulateAndGet(connectionsInUse.getAsInt(), Math::max);
+		
+		System.out.printf("%npeakThreads=%d peakDbConnections=%d completedStreams=%d failed=%d%n",
+						  threads.getPeakThreadCount(), peakConnections.get(), completed.get(), failed.get());
+		return completed.get();
+	}
+	
+	private boolean readExport() {
+		try(Socket socket = new Socket()) {
+			socket.setReceiveBufferSize(4096);
+			socket.connect(new InetSocketAddress("localhost", port));
+			socket.setSoTimeout(30_000);
+			OutputStream out = socket.getOutputStream();
+			out.write(("GET /api/product/export HTTP/1.1\r\nHost: localhost\r\nAccept: application/x-ndjson\r\n"
+					+ "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+			InputStream in = socket.getInputStream();
+			byte[] buffer = new byte[2048];
+			while(in.read(buffer) != -1)
+				Thread.sleep(READ_DELAY_MS);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+}
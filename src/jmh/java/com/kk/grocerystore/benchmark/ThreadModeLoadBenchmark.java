@@ -0,0 +1,115 @@
+package com.kk.grocerystore.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * Closed-loop HTTP load against GET /api/product/{id}, on the Tomcat worker
+ * pool and on virtual threads, with the product cache disabled and a
+ * simulated database round-trip per statement (-Dbenchmark.db-latency-ms).
+ * Every JMH thread is one client; raise -t for more concurrency, the
+ * connection pool grows with it so only the request threads are the limit.
+ * <p>
+ * Sample mode reports the latency percentiles. Failed requests are sampled
+ * as well; their count is printed per iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(1000)
+@Fork(1)
+public class ThreadModeLoadBenchmark {
+
+	private static final int CATALOG_SIZE = 10_000;
+	
+	@Param({"false", "true"})
+	private boolean virtual;
+	
+	private ConfigurableApplicationContext context;
+	
+	private HttpClient http;
+	
+	private String baseUri;
+	
+	private List<Long> ids;
+	
+	private final AtomicInteger errors = new AtomicInteger();
+	
+	@Setup(Level.Trial)
+	public void setUp(BenchmarkParams params) {
+		context = EmbeddedCatalog.start("load-" + virtual,
+				"server.port=0",
+				"grocerystore.threads.virtual=" + virtual,
+				"grocerystore.limiter.enabled=false",
+				"grocerystore.product-cache.max-size=0",
+				"spring.datasource.hikari.maximum-pool-size=" + params.getThreads(),
+				"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+						+ LatencyInjectingStatementInspector.class.getName());
+		ids = context.getBean(ProductService.class)
+					 .saveProducts(EmbeddedCatalog.products(0, CATALOG_SIZE))
+					 .stream()
+					 .map(Product::getId)
+					 .collect(Collectors.toList());
+		baseUri = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/product/";
+		http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+	}
+	
+	@TearDown(Level.Iteration)
+	public void printErrors() {
+		System.out.printf("%nerrors=%d%n", errors.getAndSet(0));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public int getProduct() throws InterruptedException {
+		Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + id))
+										 .timeout(Duration.ofSeconds(30))
+										 .build();
+		try {
+			int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+			if(status != 200)
+				errors.incrementAndGet();
+			return status;
+		} catch (IOException e) {
+			errors.incrementAndGet();
+			return -1;
+		}
+	}
+}
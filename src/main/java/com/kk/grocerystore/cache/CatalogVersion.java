@@ -0,0 +1,64 @@
+package com.kk.grocerystore.cache;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.kk.grocerystore.datasource.PrimaryRouting;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.model.CatalogVersionStripe;
+import com.kk.grocerystore.repository.CatalogVersionRepository;
+
+/**
+ * Catalog-wide version used as a cheap validator for listing responses. It
+ * lives in the catalog_version table and is bumped inside the transaction of
+ * every product write, so it moves with the data on every instance and on
+ * every replica, and a database holding version n holds exactly the catalog
+ * a response tagged n was read from.
+ */
+@Component
+public class CatalogVersion {
+
+	private static final int STRIPES = 16;
+	
+	@Autowired
+	private CatalogVersionRepository catalogVersionRepository;
+	
+	/**
+	 * Creates the missing stripes. Several instances may start at once, a
+	 * stripe another one inserted first is left as it is.
+	 */
+	@PostConstruct
+	public void createStripes() {
+		for(int stripe = 0; stripe < STRIPES; stripe++) {
+			int id = stripe;
+			if(PrimaryRouting.call(() -> catalogVersionRepository.existsById(id)))
+				continue;
+			try {
+				catalogVersionRepository.saveAndFlush(new CatalogVersionStripe(stripe, 0));
+			} catch (DataIntegrityViolationException e) {
+				// inserted concurrently
+			}
+		}
+	}
+	
+	/**
+	 * The version of the database the current transaction reads from; call it
+	 * in the transaction that reads the data it describes.
+	 */
+	public long current() {
+		return catalogVersionRepository.sumVersions();
+	}
+	
+	// a plain EventListener runs in the writer's transaction: the bump commits or rolls back with the change
+	@EventListener
+	@Transactional
+	public void onProductChanged(ProductChangedEvent event) {
+		// one stripe per thread, so a transaction publishing several events never locks two stripes
+		catalogVersionRepository.increment((int) (Thread.currentThread().threadId() % STRIPES));
+	}
+}
@@ -0,0 +1,222 @@
+package com.kk.grocerystore.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded read-through cache of products by id with LRU and TTL eviction.
+ * <p>
+ * Concurrent misses for the same id share one load. With stale serving
+ * enabled, an expired entry keeps being returned while a single background
+ * refresh reloads it, so a hot key never sends a burst of reads to the
+ * database. Callers always get a copy and may modify it freely.
+ */
+@Slf4j
+@Component
+public class ProductCache {
+
+	private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final Map<Long, CompletableFuture<Optional<Product>>> loading = new ConcurrentHashMap<>();
+
+	private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, runnable -> {
+		Thread thread = new Thread(runnable, "product-cache-refresh");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder staleHits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder loadFailures = new LongAdder();
+
+	@Value("${grocerystore.product-cache.max-size:10000}")
+	private int maxSize;
+
+	@Value("${grocerystore.product-cache.ttl-ms:60000}")
+	private long ttlMillis;
+
+	@Value("${grocerystore.product-cache.serve-stale-while-refreshing:true}")
+	private boolean serveStaleWhileRefreshing;
+
+	public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(id);
+		}
+		if(entry != null) {
+			if(!entry.isExpired(System.nanoTime(), ttlMillis)) {
+				hits.increment();
+				return Optional.of(copy(entry.product));
+			}
+			if(serveStaleWhileRefreshing) {
+				staleHits.increment();
+				if(entry.startRefresh())
+					refreshExecutor.execute(() -> refresh(id, entry, loader));
+				return Optional.of(copy(entry.product));
+			}
+		}
+		misses.increment();
+		return load(id, loader).map(ProductCache::copy);
+	}
+
+	public void put(Product product) {
+		synchronized (entries) {
+			loading.remove(product.getId());
+			putLocked(product);
+		}
+	}
+
+	public void invalidate(Long id) {
+		synchronized (entries) {
+			// a load that started before the write must not repopulate the entry
+			loading.remove(id);
+			entries.remove(id);
+		}
+	}
+
+	public void invalidateAll() {
+		synchronized (entries) {
+			loading.clear();
+			entries.clear();
+		}
+	}
+
+	public Stats stats() {
+		int size;
+		synchronized (entries) {
+			size = entries.size();
+		}
+		return new Stats(size, hits.sum(), staleHits.sum(), misses.sum(), evictions.sum(), loadFailures.sum());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if(event.getType() == ChangeType.DELETED || event.getProducts().isEmpty()) {
+			event.getProductIds().forEach(this::invalidate);
+			return;
+		}
+		event.getProducts().forEach(this::put);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		refreshExecutor.shutdownNow();
+	}
+
+	private Optional<Product> load(Long id, Function<Long, Optional<Product>> loader) {
+		CompletableFuture<Optional<Product>> future = new CompletableFuture<>();
+		CompletableFuture<Optional<Product>> inFlight = loading.putIfAbsent(id, future);
+		if(inFlight != null)
+			return inFlight.join();
+
+		try {
+			Optional<Product> loaded = loader.apply(id);
+			synchronized (entries) {
+				if(loading.remove(id, future))
+					loaded.ifPresent(this::putLocked);
+			}
+			future.complete(loaded);
+			return loaded;
+		} catch (RuntimeException e) {
+			loading.remove(id, future);
+			loadFailures.increment();
+			future.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private void refresh(Long id, Entry stale, Function<Long, Optional<Product>> loader) {
+		try {
+			Optional<Product> loaded = load(id, loader);
+			if(!loaded.isPresent())
+				synchronized (entries) {
+					entries.remove(id, stale);
+				}
+		} catch (RuntimeException e) {
+			log.warn("Refresh of product {} failed, serving the stale entry", id, e);
+		} finally {
+			stale.refreshing = false;
+		}
+	}
+
+	private void putLocked(Product product) {
+		entries.put(product.getId(), new Entry(copy(product), System.nanoTime()));
+		if(entries.size() > maxSize) {
+			Iterator<Long> eldest = entries.keySet().iterator();
+			eldest.next();
+			eldest.remove();
+			evictions.increment();
+		}
+	}
+
+	private static Product copy(Product product) {
+		return product.toBuilder().build();
+	}
+
+	private static class Entry {
+
+		private final Product product;
+
+		private final long loadedAt;
+
+		private volatile boolean refreshing;
+
+		Entry(Product product, long loadedAt) {
+			this.product = product;
+			this.loadedAt = loadedAt;
+		}
+
+		boolean isExpired(long now, long ttlMillis) {
+			return now - loadedAt > TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		}
+
+		synchronized boolean startRefresh() {
+			if(refreshing)
+				return false;
+			refreshing = true;
+			return true;
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	public static class Stats {
+
+		private int size;
+
+		private long hits;
+
+		private long staleHits;
+
+		private long misses;
+
+		private long evictions;
+
+		private long loadFailures;
+	}
+}
@@ -0,0 +1,37 @@
+package com.kk.grocerystore.config;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opt-in with grocerystore.threads.virtual=true: Tomcat hands every request,
+ * and MVC every streaming body, to a new virtual thread, so a request blocked
+ * on the database no longer holds a platform thread. Concurrency is then
+ * bounded by the connection pool instead of server.tomcat.threads.max, so
+ * size spring.datasource.hikari.maximum-pool-size accordingly.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "grocerystore.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		log.info("Serving requests on virtual threads");
+		return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+	}
+	
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor()));
+	}
+}
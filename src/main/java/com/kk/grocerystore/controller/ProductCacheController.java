@@ -0,0 +1,22 @@
+package com.kk.grocerystore.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.kk.grocerystore.cache.ProductCache;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class ProductCacheController {
+
+	@Autowired
+	private ProductCache productCache;
+	
+	@GetMapping("/api/cache/product/stats")
+	public ProductCache.Stats getStats(){
+		return productCache.stats();
+	}
+}
@@ -1,45 +1,217 @@
 package com.kk.grocerystore.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kk.grocerystore.dto.BulkResult;
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.dto.PatchResult;
+import com.kk.grocerystore.dto.ProductBulkDelete;
+import com.kk.grocerystore.dto.ProductBulkUpdate;
+import com.kk.grocerystore.dto.ProductListing;
+import com.kk.grocerystore.dto.ProductPage;
+import com.kk.grocerystore.dto.ProductPatch;
+import com.kk.grocerystore.dto.ProductSummary;
+import com.kk.grocerystore.dto.ProductSummaryPage;
+import com.kk.grocerystore.dto.StockUpdateResult;
 import com.kk.grocerystore.model.Product;
 import com.kk.grocerystore.service.ProductService;
 
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class ProductController {
 
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	
+	public static final int MAX_PAGE_SIZE = 1000;
+	
+	public static final int MAX_BULK_IDS = 10000;
+	
+	// summaries are a fraction of a product's size, so larger pages are allowed
+	public static final int MAX_SUMMARY_PAGE_SIZE = 10000;
+	
+	// an export runs at the pace of its client; other async requests keep the default timeout
+	private static final long EXPORT_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+
 	@Autowired
 	private ProductService productService;
 	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
 	@PostMapping("/api/product")
 	@ResponseStatus(HttpStatus.CREATED)
 	public Product saveProduct(@RequestBody Product product) {
 		return productService.saveProduct(product);
 	}
 	
+	@PostMapping("/api/product/bulk")
+	@ResponseStatus(HttpStatus.CREATED)
+	public List<Product> saveProducts(@RequestBody List<Product> products) {
+		return productService.saveProducts(products);
+	}
+	
 	@GetMapping("/api/product")
-	public List<Product> getAllProducts(){
-		return productService.listProduct();
+	public ResponseEntity<List<Product>> getAllProducts(@RequestParam(name = "after", required = false) Long after,
+														@RequestParam(name = "limit", defaultValue = "100") int limit,
+														@RequestParam(name = "category", required = false) String category,
+														WebRequest request){
+		if(limit < 1)
+			return ResponseEntity.badRequest().build();
+		
+		if(isCatalogUnchanged(request))
+			return null;
+		
+		ProductPage page = productService.listProductPage(after, Math.min(limit, MAX_PAGE_SIZE), category);
+		// one ETag covers JSON, CBOR and Smile, so shared caches must key on Accept as well
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT)
+															.eTag(catalogETag(page.getVersion()));
+		if(page.getNextCursor() != null)
+			response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+		return response.body(page.getProducts());
+	}
+	
+	/**
+	 * Same keyset paging as GET /api/product, but only id, name, price and
+	 * stock of each product.
+	 */
+	@GetMapping("/api/product/summary")
+	public ResponseEntity<List<ProductSummary>> getProductSummaries(@RequestParam(name = "after", required = false) Long after,
+																	@RequestParam(name = "limit", defaultValue = "100") int limit,
+																	@RequestParam(name = "category", required = false) String category,
+																	WebRequest request){
+		if(limit < 1)
+			return ResponseEntity.badRequest().build();
+		
+		if(isCatalogUnchanged(request))
+			return null;
+		
+		ProductSummaryPage page = productService.listProductSummaryPage(after, Math.min(limit, MAX_SUMMARY_PAGE_SIZE), category);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT)
+															.eTag(catalogETag(page.getVersion()));
+		if(page.getNextCursor() != null)
+			response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+		return response.body(page.getProducts());
+	}
+	
+	@GetMapping(value = "/api/product/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public WebAsyncTask<Void> exportProducts(HttpServletResponse response){
+		ObjectWriter writer = objectMapper.writerFor(Product.class)
+										  .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+										  .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+										  .withRootValueSeparator("\n");
+		
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		return new WebAsyncTask<>(EXPORT_TIMEOUT_MS, () -> {
+			OutputStream out = response.getOutputStream();
+			try(SequenceWriter sequence = writer.writeValues(out)){
+				productService.exportProducts(product -> {
+					try {
+						sequence.write(product);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			out.write('\n');
+			out.flush();
+			return null;
+		});
+	}
+	
+	@GetMapping("/api/product/search")
+	public ResponseEntity<List<Product>> searchProducts(@RequestParam(name = "q") String query,
+														@RequestParam(name = "category", required = false) String category,
+														@RequestParam(name = "limit", defaultValue = "20") int limit){
+		if(query.isBlank() || limit < 1)
+			return ResponseEntity.badRequest().build();
+		return ResponseEntity.ok(productService.searchProducts(query, category, Math.min(limit, MAX_PAGE_SIZE)));
+	}
+	
+	@GetMapping("/api/product/autocomplete")
+	public ResponseEntity<List<String>> autocomplete(@RequestParam(name = "prefix") String prefix,
+													 @RequestParam(name = "limit", defaultValue = "10") int limit){
+		if(prefix.isEmpty() || limit < 1)
+			return ResponseEntity.badRequest().build();
+		return ResponseEntity.ok(productService.autocompleteNames(prefix, Math.min(limit, 100)));
+	}
+	
+	/**
+	 * Products within an optional price range, cheapest first unless
+	 * sort=desc, optionally restricted to a category.
+	 */
+	@GetMapping("/api/product/price")
+	public ResponseEntity<List<Product>> getProductsByPrice(@RequestParam(name = "category", required = false) String category,
+															@RequestParam(name = "min", required = false) BigDecimal min,
+															@RequestParam(name = "max", required = false) BigDecimal max,
+															@RequestParam(name = "sort", defaultValue = "asc") String sort,
+															@RequestParam(name = "limit", defaultValue = "100") int limit){
+		boolean descending = "desc".equalsIgnoreCase(sort);
+		if(limit < 1 || (!descending && !"asc".equalsIgnoreCase(sort)))
+			return ResponseEntity.badRequest().build();
+		return ResponseEntity.ok(productService.findProductsByPrice(category, min, max, descending,
+				Math.min(limit, MAX_PAGE_SIZE)));
+	}
+	
+	@GetMapping("/api/product/aggregates")
+	public List<CategoryAggregate> getCategoryAggregates(){
+		return productService.getCategoryAggregates();
+	}
+	
+	@GetMapping("/api/product/category/{category}")
+	public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable("category") String category,
+															   WebRequest request){
+		return toListingResponse(productService.findProductsByCategory(category), request);
+	}
+	
+	@GetMapping("/api/product/in-stock")
+	public ResponseEntity<List<Product>> getRemainingProducts(WebRequest request){
+		return toListingResponse(productService.findRemainingProducts(), request);
 	}
 	
 	@GetMapping("/api/product/{id}")
 	public ResponseEntity<Product> getProductById(@PathVariable(name = "id") Long id){
 		Optional<Product> productOpt = productService.getProductById(id);
+		// a matching If-None-Match turns this into a 304 before the body is serialized
 		if(productOpt.isPresent())
-			return ResponseEntity.ok(productOpt.get());
+			return ResponseEntity.ok().eTag(productETag(productOpt.get())).body(productOpt.get());
 		return ResponseEntity.notFound().build();
 	}
 	
@@ -62,6 +234,144 @@ public class ProductController {
 		return ResponseEntity.ok(productService.updateProduct(savedProduct)); 
 	}
 	
+	/**
+	 * Applies only the supplied fields. The expected version comes from an
+	 * If-Match ETag or the body's version; with it the update is a single
+	 * conditional statement and a stale version answers 409.
+	 */
+	@PatchMapping("/api/product/{id}")
+	public ResponseEntity<Void> patchProduct(@PathVariable(name = "id") Long id,
+											 @RequestBody ProductPatch patch,
+											 @RequestHeader(name = "If-Match", required = false) String ifMatch){
+		if(patch.isEmpty())
+			return ResponseEntity.badRequest().build();
+		if(ifMatch != null) {
+			Long expectedVersion = versionFromETag(id, ifMatch);
+			if(expectedVersion == null)
+				return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+			patch.setVersion(expectedVersion);
+		}
+		
+		PatchResult result = productService.patchProduct(id, patch);
+		switch(result.getStatus()) {
+			case NOT_FOUND:
+				return ResponseEntity.notFound().build();
+			case VERSION_CONFLICT:
+				return ResponseEntity.status(HttpStatus.CONFLICT).build();
+			default:
+				ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent();
+				if(result.getVersion() != null)
+					response.eTag(id + "-" + result.getVersion());
+				return response.build();
+		}
+	}
+	
+	/**
+	 * Applies one price, category and/or quantity change to the listed ids
+	 * or to a whole category with set-based statements.
+	 */
+	@PatchMapping("/api/product/bulk")
+	public ResponseEntity<BulkResult> bulkUpdateProducts(@RequestBody ProductBulkUpdate update){
+		if(!update.hasChanges() || !isValidSelection(update.getIds(), update.getInCategory()))
+			return ResponseEntity.badRequest().build();
+		return ResponseEntity.ok(new BulkResult(productService.bulkUpdateProducts(update)));
+	}
+	
+	@PostMapping("/api/product/bulk/delete")
+	public ResponseEntity<BulkResult> bulkDeleteProducts(@RequestBody ProductBulkDelete delete){
+		if(!isValidSelection(delete.getIds(), delete.getCategory()))
+			return ResponseEntity.badRequest().build();
+		return ResponseEntity.ok(new BulkResult(productService.bulkDeleteProducts(delete)));
+	}
+	
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	public ResponseEntity<String> handleVersionConflict(ObjectOptimisticLockingFailureException e){
+		return ResponseEntity.status(HttpStatus.CONFLICT).body("Product was modified concurrently");
+	}
+	
+	@PostMapping("/api/product/{id}/stock/decrement")
+	public ResponseEntity<StockUpdateResult> decreaseStock(@PathVariable("id") Long id,
+														   @RequestParam("quantity") int quantity){
+		if(quantity < 1)
+			return ResponseEntity.badRequest().build();
+		return toStockResponse(productService.decreaseStock(id, quantity));
+	}
+	
+	@PostMapping("/api/product/{id}/stock/increment")
+	public ResponseEntity<StockUpdateResult> increaseStock(@PathVariable("id") Long id,
+														   @RequestParam("quantity") int quantity){
+		if(quantity < 1)
+			return ResponseEntity.badRequest().build();
+		return toStockResponse(productService.increaseStock(id, quantity));
+	}
+	
+	private static String productETag(Product product) {
+		return product.getId() + "-" + product.getVersion();
+	}
+	
+	private static Long versionFromETag(Long id, String etag) {
+		String value = etag.trim();
+		if(value.startsWith("W/"))
+			return null;
+		value = value.replace("\"", "");
+		String prefix = id + "-";
+		if(!value.startsWith(prefix))
+			return null;
+		try {
+			return Long.valueOf(value.substring(prefix.length()));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
+	private static boolean isValidSelection(List<Long> ids, String category) {
+		if(ids == null)
+			return category != null && !category.isBlank();
+		return category == null && !ids.isEmpty() && ids.size() <= MAX_BULK_IDS;
+	}
+	
+	/**
+	 * Answers a conditional listing request from the catalog version alone.
+	 * Whichever database serves it, primary or replica, holds the catalog the
+	 * client's ETag was read from when it reports the same version. The full
+	 * response is tagged with the version read together with its page instead.
+	 */
+	private boolean isCatalogUnchanged(WebRequest request) {
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if(ifNoneMatch == null)
+			return false;
+		String etag = catalogETag(productService.getCatalogVersion());
+		// checkNotModified also sets its ETag on a miss, which must stay the one of the page
+		return ifNoneMatch.contains('"' + etag + '"') && request.checkNotModified(etag);
+	}
+	
+	private static String catalogETag(long version) {
+		return "catalog-" + version;
+	}
+	
+	/**
+	 * The ETag is the version of the snapshot that produced the body, so a
+	 * 304 can never confirm a snapshot the client has not seen. Listings read
+	 * from the database have no such version and are sent without one.
+	 */
+	private static ResponseEntity<List<Product>> toListingResponse(ProductListing listing, WebRequest request){
+		if(listing.getVersion() == null)
+			return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(listing.getProducts());
+		String etag = catalogETag(listing.getVersion());
+		if(request.checkNotModified(etag))
+			return null;
+		return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(listing.getProducts());
+	}
+	
+	private ResponseEntity<StockUpdateResult> toStockResponse(Optional<StockUpdateResult> resultOpt){
+		if(!resultOpt.isPresent())
+			return ResponseEntity.notFound().build();
+		StockUpdateResult result = resultOpt.get();
+		if(!result.isApplied())
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+		return ResponseEntity.ok(result);
+	}
+	
 	@DeleteMapping("/api/product/{id}")
 	public ResponseEntity<String> deleteProductById(@PathVariable("id") Long id){
 		productService.deleteProductById(id);
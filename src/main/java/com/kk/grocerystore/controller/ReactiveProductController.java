@@ -0,0 +1,80 @@
+package com.kk.grocerystore.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ReactiveProductRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read endpoints of ProductController for the reactive deployment
+ * (spring.profiles.active=reactive). Lists are streamed with backpressure,
+ * as a JSON array or one product per line for application/x-ndjson; the
+ * listing is paged like the servlet one and the export streams everything.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveProductController {
+
+	@Autowired
+	private ReactiveProductRepository productRepository;
+	
+	/**
+	 * Same keyset paging, default and cap as the servlet listing. One extra
+	 * row is read to tell whether X-Next-Cursor is needed, so a page is
+	 * buffered before it is written; use /api/product/export to stream the
+	 * whole catalog.
+	 */
+	@GetMapping(value = "/api/product", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+	public Mono<ResponseEntity<Flux<Product>>> getAllProducts(@RequestParam(name = "after", required = false) Long after,
+															  @RequestParam(name = "limit", defaultValue = "100") int limit,
+															  @RequestParam(name = "category", required = false) String category){
+		if(limit < 1)
+			return Mono.just(ResponseEntity.badRequest().build());
+		int pageSize = Math.min(limit, ProductController.MAX_PAGE_SIZE);
+		return productRepository.findAfter(after, pageSize + 1, category)
+								.collectList()
+								.map(products -> {
+									ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+									if(products.size() <= pageSize)
+										return response.body(Flux.fromIterable(products));
+									List<Product> page = products.subList(0, pageSize);
+									response.header(ProductController.NEXT_CURSOR_HEADER, page.get(pageSize - 1).getId().toString());
+									return response.body(Flux.fromIterable(page));
+								});
+	}
+	
+	@GetMapping(value = "/api/product/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<Product> exportProducts(){
+		return productRepository.findAll();
+	}
+	
+	@GetMapping(value = "/api/product/category/{category}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+	public Flux<Product> getProductsByCategory(@PathVariable("category") String category){
+		return productRepository.findByCategory(category);
+	}
+	
+	@GetMapping(value = "/api/product/in-stock", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+	public Flux<Product> getRemainingProducts(){
+		return productRepository.findInStock();
+	}
+	
+	@GetMapping("/api/product/{id}")
+	public Mono<ResponseEntity<Product>> getProductById(@PathVariable(name = "id") Long id){
+		return productRepository.findById(id)
+								.map(product -> ResponseEntity.ok().eTag(product.getId() + "-" + product.getVersion()).body(product))
+								.defaultIfEmpty(ResponseEntity.notFound().build());
+	}
+}
@@ -0,0 +1,50 @@
+package com.kk.grocerystore.controller;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.kk.grocerystore.dto.StockUpdateResult;
+import com.kk.grocerystore.reservation.StockReservationEngine;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class StockReservationController {
+
+	@Autowired
+	private StockReservationEngine reservationEngine;
+	
+	@PostMapping("/api/product/{id}/reservations")
+	public ResponseEntity<StockUpdateResult> reserve(@PathVariable("id") Long id,
+													 @RequestParam("quantity") int quantity){
+		if(quantity < 1)
+			return ResponseEntity.badRequest().build();
+		return toResponse(reservationEngine.reserve(id, quantity));
+	}
+	
+	@DeleteMapping("/api/product/{id}/reservations")
+	public ResponseEntity<StockUpdateResult> release(@PathVariable("id") Long id,
+													 @RequestParam("quantity") int quantity){
+		if(quantity < 1)
+			return ResponseEntity.badRequest().build();
+		return toResponse(reservationEngine.release(id, quantity));
+	}
+	
+	private ResponseEntity<StockUpdateResult> toResponse(Optional<StockUpdateResult> resultOpt){
+		if(!resultOpt.isPresent())
+			return ResponseEntity.notFound().build();
+		StockUpdateResult result = resultOpt.get();
+		if(!result.isApplied())
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+		return ResponseEntity.ok(result);
+	}
+}
@@ -0,0 +1,43 @@
+package com.kk.grocerystore.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Pins reads of the current thread to the primary even inside read-only
+ * transactions, for callers that must see their own writes (post-commit
+ * listeners, cache fills) and cannot tolerate replica lag.
+ * <p>
+ * Only the connection obtained inside the call is affected, so the whole
+ * transaction has to start inside it.
+ */
+public final class PrimaryRouting {
+
+	private static final ThreadLocal<Integer> DEPTH = ThreadLocal.withInitial(() -> 0);
+	
+	private PrimaryRouting() {
+	}
+	
+	public static <T> T call(Supplier<T> action) {
+		DEPTH.set(DEPTH.get() + 1);
+		try {
+			return action.get();
+		} finally {
+			int depth = DEPTH.get() - 1;
+			if(depth == 0)
+				DEPTH.remove();
+			else
+				DEPTH.set(depth);
+		}
+	}
+	
+	public static void run(Runnable action) {
+		call(() -> {
+			action.run();
+			return null;
+		});
+	}
+	
+	public static boolean isForced() {
+		return DEPTH.get() > 0;
+	}
+}
@@ -0,0 +1,31 @@
+package com.kk.grocerystore.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Spring Boot backs its DataSource off as soon as an R2DBC ConnectionFactory
+ * exists, which would take JPA away from the reactive deployment although its
+ * writes, indexes and outbox still run on it. Declares the spring.datasource
+ * pool there; with replicas configured ReplicaDataSourceConfig declares it.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveJdbcDataSourceConfig {
+
+	@Bean
+	@ConditionalOnExpression("'${grocerystore.datasource.replicas[0].url:}'.isEmpty()")
+	@ConfigurationProperties(prefix = "spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+}
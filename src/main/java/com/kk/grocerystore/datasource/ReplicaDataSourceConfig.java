@@ -0,0 +1,66 @@
+package com.kk.grocerystore.datasource;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Active once grocerystore.datasource.replicas[0].url is set: spring.datasource
+ * stays the primary and read-only transactions are spread over the replicas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "grocerystore.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties(prefix = "spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+	
+	@Bean(destroyMethod = "close")
+	public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+															 ReplicaProperties properties) {
+		List<DataSource> replicas = IntStream.range(0, properties.getReplicas().size())
+											 .mapToObj(i -> replica("replica-" + i, properties.getReplicas().get(i)))
+											 .collect(Collectors.toList());
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas,
+				properties.getSelection(), properties.getRetryAfterMs());
+	}
+	
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+	
+	private static DataSource replica(String name, ReplicaProperties.Replica replica) {
+		HikariDataSource dataSource = DataSourceBuilder.create()
+													   .type(HikariDataSource.class)
+													   .url(replica.getUrl())
+													   .username(replica.getUsername())
+													   .password(replica.getPassword())
+													   .build();
+		dataSource.setPoolName(name);
+		dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+}
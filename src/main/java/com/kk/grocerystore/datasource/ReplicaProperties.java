@@ -0,0 +1,39 @@
+package com.kk.grocerystore.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "grocerystore.datasource")
+public class ReplicaProperties {
+
+	public enum Selection {
+		ROUND_ROBIN, LEAST_LOADED
+	}
+	
+	private List<Replica> replicas = new ArrayList<>();
+	
+	private Selection selection = Selection.ROUND_ROBIN;
+	
+	// how long a replica that refused a connection is skipped
+	private long retryAfterMs = 30000;
+	
+	@Getter
+	@Setter
+	public static class Replica {
+		
+		private String url;
+		
+		private String username;
+		
+		private String password;
+		
+		private int maximumPoolSize = 10;
+	}
+}
@@ -0,0 +1,129 @@
+package com.kk.grocerystore.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.kk.grocerystore.datasource.ReplicaProperties.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out replica connections inside read-only transactions and primary
+ * connections everywhere else. A replica that fails to give a connection is
+ * skipped for retryAfterMillis and the read goes to the primary instead.
+ * <p>
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction manager
+ * asks for a connection before the read-only flag of the transaction is
+ * published, the proxy defers that until the first statement.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	private final DataSource primary;
+	
+	private final List<Replica> replicas = new ArrayList<>();
+	
+	private final Selection selection;
+	
+	private final long retryAfterMillis;
+	
+	private final AtomicInteger next = new AtomicInteger();
+	
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+									Selection selection, long retryAfterMillis) {
+		this.primary = primary;
+		for(int i = 0; i < replicas.size(); i++)
+			this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+		this.selection = selection;
+		this.retryAfterMillis = retryAfterMillis;
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		if(!routeToReplica())
+			return primary.getConnection();
+		Replica replica = select();
+		if(replica == null)
+			return primary.getConnection();
+		try {
+			return replica.dataSource.getConnection();
+		} catch (SQLException e) {
+			replica.downUntil = System.currentTimeMillis() + retryAfterMillis;
+			log.warn("{} unavailable, reading from the primary for {} ms", replica.name, retryAfterMillis, e);
+			return primary.getConnection();
+		}
+	}
+	
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return primary.getConnection(username, password);
+	}
+	
+	/**
+	 * Closes the replica pools; the primary is a bean of its own.
+	 */
+	@Override
+	public void close() throws Exception {
+		for(Replica replica : replicas)
+			if(replica.dataSource instanceof AutoCloseable)
+				((AutoCloseable) replica.dataSource).close();
+	}
+	
+	private static boolean routeToReplica() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PrimaryRouting.isForced();
+	}
+	
+	private Replica select() {
+		long now = System.currentTimeMillis();
+		List<Replica> available = new ArrayList<>(replicas.size());
+		for(Replica replica : replicas)
+			if(replica.downUntil <= now)
+				available.add(replica);
+		if(available.isEmpty())
+			return null;
+		if(selection == Selection.ROUND_ROBIN)
+			return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+		
+		Replica least = available.get(0);
+		int leastActive = activeConnections(least.dataSource);
+		for(int i = 1; i < available.size(); i++) {
+			int active = activeConnections(available.get(i).dataSource);
+			if(active < leastActive) {
+				least = available.get(i);
+				leastActive = active;
+			}
+		}
+		return least;
+	}
+	
+	private static int activeConnections(DataSource dataSource) {
+		if(!(dataSource instanceof HikariDataSource))
+			return 0;
+		HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+		return pool == null ? 0 : pool.getActiveConnections();
+	}
+	
+	private static final class Replica {
+		
+		private final String name;
+		
+		private final DataSource dataSource;
+		
+		private volatile long downUntil;
+		
+		private Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.kk.grocerystore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of rows a bulk statement changed.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResult {
+
+	private int affected;
+}
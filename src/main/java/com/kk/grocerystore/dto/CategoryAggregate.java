@@ -0,0 +1,39 @@
+package com.kk.grocerystore.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Inventory totals of one category. inventoryValue is the sum of
+ * remainingQuantity * pricePerUnit; a product without stock counts as out of stock.
+ */
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+public class CategoryAggregate {
+
+	private String category;
+	
+	private long skuCount;
+	
+	private long unitsRemaining;
+	
+	private BigDecimal inventoryValue;
+	
+	private long outOfStockCount;
+	
+	// constructor expression target of ProductRepository.aggregateByCategory; Hibernate rejects the
+	// expression when more than one constructor accepts its result types, so keep this the only one
+	public CategoryAggregate(String category, long skuCount, long unitsRemaining,
+							 BigDecimal inventoryValue, long outOfStockCount) {
+		this.category = category;
+		this.skuCount = skuCount;
+		this.unitsRemaining = unitsRemaining;
+		this.inventoryValue = inventoryValue.setScale(2, RoundingMode.HALF_UP);
+		this.outOfStockCount = outOfStockCount;
+	}
+}
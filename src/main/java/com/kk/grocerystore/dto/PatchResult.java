@@ -0,0 +1,21 @@
+package com.kk.grocerystore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a partial update. version is the new row version once the
+ * update is applied.
+ */
+@Getter
+@AllArgsConstructor
+public class PatchResult {
+
+	public enum Status {
+		APPLIED, NOT_FOUND, VERSION_CONFLICT
+	}
+	
+	private Status status;
+	
+	private Long version;
+}
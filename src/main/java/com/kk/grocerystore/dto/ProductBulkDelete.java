@@ -0,0 +1,24 @@
+package com.kk.grocerystore.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Products to delete: either the listed ids or every product of category.
+ */
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBulkDelete {
+
+	private List<Long> ids;
+	
+	private String category;
+}
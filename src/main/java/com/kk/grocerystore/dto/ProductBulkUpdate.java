@@ -0,0 +1,36 @@
+package com.kk.grocerystore.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One change applied to many products: either the listed ids or every
+ * product of inCategory. Null fields are left untouched.
+ */
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBulkUpdate {
+
+	private List<Long> ids;
+	
+	private String inCategory;
+	
+	private BigDecimal pricePerUnit;
+	
+	private String category;
+	
+	private Integer remainingQuantity;
+	
+	public boolean hasChanges() {
+		return pricePerUnit != null || category != null || remainingQuantity != null;
+	}
+}
@@ -0,0 +1,22 @@
+package com.kk.grocerystore.dto;
+
+import java.util.List;
+
+import com.kk.grocerystore.model.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Products read from one catalog snapshot together with that snapshot's
+ * version, so a validator always describes the body it was sent with.
+ * version is null when the products came from the database instead.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductListing {
+
+	private List<Product> products;
+	
+	private Long version;
+}
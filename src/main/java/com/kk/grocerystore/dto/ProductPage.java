@@ -0,0 +1,24 @@
+package com.kk.grocerystore.dto;
+
+import java.util.List;
+
+import com.kk.grocerystore.model.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One keyset page of products. nextCursor is the id to pass as "after"
+ * for the next page, or null when this is the last page. version is the
+ * catalog version read in the same transaction as the products.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductPage {
+
+	private List<Product> products;
+	
+	private Long nextCursor;
+	
+	private long version;
+}
@@ -0,0 +1,41 @@
+package com.kk.grocerystore.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Partial update of a product: null fields are left untouched. version is
+ * the version the client last saw; when present the update only applies
+ * if the row still has it.
+ */
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPatch {
+
+	private String name;
+	
+	private String description;
+	
+	private Integer initialQuantity;
+	
+	private Integer remainingQuantity;
+	
+	private String category;
+	
+	private BigDecimal pricePerUnit;
+	
+	private Long version;
+	
+	public boolean isEmpty() {
+		return name == null && description == null && initialQuantity == null
+				&& remainingQuantity == null && category == null && pricePerUnit == null;
+	}
+}
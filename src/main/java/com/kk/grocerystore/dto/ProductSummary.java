@@ -0,0 +1,25 @@
+package com.kk.grocerystore.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The columns a listing shows, selected with a JPQL constructor expression
+ * so no managed Product, dirty-checking snapshot or description is loaded.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSummary {
+
+	private Long id;
+	
+	private String name;
+	
+	private BigDecimal pricePerUnit;
+	
+	private Integer remainingQuantity;
+}
@@ -0,0 +1,20 @@
+package com.kk.grocerystore.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One keyset page of product summaries, see ProductPage.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductSummaryPage {
+
+	private List<ProductSummary> products;
+	
+	private Long nextCursor;
+	
+	private long version;
+}
@@ -0,0 +1,21 @@
+package com.kk.grocerystore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a stock adjustment. applied is false when a decrement was
+ * refused for insufficient stock; remainingQuantity is the current level either way.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockUpdateResult {
+
+	private Long productId;
+	
+	private Integer remainingQuantity;
+	
+	private boolean applied;
+}
@@ -0,0 +1,82 @@
+package com.kk.grocerystore.event;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.kk.grocerystore.datasource.PrimaryRouting;
+import com.kk.grocerystore.model.Product;
+
+/**
+ * Published after products are written. products holds the new state when
+ * the publisher already has it in hand; it is empty for deletes and for
+ * statement-level updates such as stock adjustments.
+ */
+public class ProductChangedEvent extends ApplicationEvent {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum ChangeType {
+		CREATED, UPDATED, DELETED, STOCK_CHANGED
+	}
+	
+	private final ChangeType type;
+	
+	private final List<Long> productIds;
+	
+	private final List<Product> products;
+	
+	// guards the load of loadedProducts, which is database I/O
+	private final ReentrantLock loadLock = new ReentrantLock();
+	
+	private List<Product> loadedProducts;
+	
+	public ProductChangedEvent(Object source, ChangeType type, List<Long> productIds, List<Product> products) {
+		super(source);
+		this.type = type;
+		this.productIds = Collections.unmodifiableList(productIds);
+		this.products = Collections.unmodifiableList(products);
+	}
+	
+	public static ProductChangedEvent of(Object source, ChangeType type, Product product) {
+		return new ProductChangedEvent(source, type, List.of(product.getId()), List.of(product));
+	}
+	
+	public static ProductChangedEvent ofIds(Object source, ChangeType type, List<Long> productIds) {
+		return new ProductChangedEvent(source, type, productIds, List.of());
+	}
+
+	public ChangeType getType() {
+		return type;
+	}
+
+	public List<Long> getProductIds() {
+		return productIds;
+	}
+
+	public List<Product> getProducts() {
+		return products;
+	}
+	
+	/**
+	 * New state of the changed products, loaded once with the given loader
+	 * when the publisher did not attach it and shared by all listeners.
+	 * Ids that no longer exist are simply absent. The load always reads the
+	 * primary, since a replica may not have the committed change yet.
+	 */
+	public List<Product> currentProducts(Function<List<Long>, List<Product>> loader) {
+		if(!products.isEmpty() || type == ChangeType.DELETED)
+			return products;
+		loadLock.lock();
+		try {
+			if(loadedProducts == null)
+				loadedProducts = Collections.unmodifiableList(PrimaryRouting.call(() -> loader.apply(productIds)));
+			return loadedProducts;
+		} finally {
+			loadLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.kk.grocerystore.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings. mightContain never returns false
+ * for a value that was added; false positives happen at roughly the rate
+ * the filter was sized for.
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray words;
+	
+	private final long bitCount;
+	
+	private final int hashCount;
+	
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		long expected = Math.max(1, expectedInsertions);
+		long bits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int wordCount = (int) Math.max(1, (bits + 63) / 64);
+		this.words = new AtomicLongArray(wordCount);
+		this.bitCount = wordCount * 64L;
+		this.hashCount = Math.max(1, (int) Math.round((double) bits / expected * Math.log(2)));
+	}
+	
+	public void add(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+		for(int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+			long mask = 1L << bit;
+			words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+		}
+	}
+	
+	public boolean mightContain(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+		for(int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+			if((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+	
+	private static long hash(String value) {
+		// FNV-1a over the chars, finished with a murmur3 mix for better bit spread
+		long hash = 0xCBF29CE484222325L;
+		for(int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001B3L;
+		}
+		return mix(hash);
+	}
+	
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,137 @@
+package com.kk.grocerystore.index;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kk.grocerystore.datasource.PrimaryRouting;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills every CatalogView from a single scan of the Products table on
+ * startup, and single views again when they ask for a rebuild.
+ * <p>
+ * The scan runs on the primary and clears the persistence context as it
+ * goes, so memory stays bounded by what the views keep. Products changed
+ * while a load runs are recorded and replayed to its views afterwards,
+ * since the scan may not have seen them.
+ */
+@Slf4j
+@Component
+public class CatalogLoader {
+
+	private static final int CLEAR_INTERVAL = 1000;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private ObjectProvider<CatalogView> views;
+
+	// serializes loads so the recorded changes belong to the running one; held for the whole scan
+	private final ReentrantLock loadOrder = new ReentrantLock();
+
+	private final Object lock = new Object();
+
+	// guarded by lock; recording starts with the application so changes made
+	// before the first load are replayed as well
+	private final Set<Long> changedWhileLoading = new HashSet<>();
+	private boolean loading = true;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadAll() {
+		load(views.orderedStream().collect(Collectors.toList()));
+	}
+
+	/**
+	 * Rebuilds the given views from one scan and replays the changes made
+	 * meanwhile. Views keep their previous state if the scan fails.
+	 */
+	public boolean load(List<? extends CatalogView> targets) {
+		loadOrder.lock();
+		try {
+			synchronized (lock) {
+				loading = true;
+			}
+			boolean built = build(targets);
+			List<Long> missed;
+			synchronized (lock) {
+				loading = false;
+				missed = new ArrayList<>(changedWhileLoading);
+				changedWhileLoading.clear();
+			}
+			if(built && !missed.isEmpty()) {
+				// one event per view, so each loads the products under its own write lock
+				for(CatalogView view : targets)
+					PrimaryRouting.run(() -> view.onProductChanged(ProductChangedEvent.ofIds(this, ChangeType.UPDATED, missed)));
+			}
+			return built;
+		} finally {
+			loadOrder.unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		synchronized (lock) {
+			if(loading)
+				changedWhileLoading.addAll(event.getProductIds());
+		}
+	}
+
+	private boolean build(List<? extends CatalogView> targets) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setReadOnly(true);
+		try {
+			List<CatalogView.Builder> builders = targets.stream()
+														.map(CatalogView::newBuilder)
+														.collect(Collectors.toList());
+			PrimaryRouting.run(() -> transaction.executeWithoutResult(status -> {
+				try(Stream<Product> products = productRepository.streamAllProducts()){
+					Iterator<Product> iterator = products.iterator();
+					int scanned = 0;
+					while(iterator.hasNext()) {
+						Product product = iterator.next();
+						builders.forEach(builder -> builder.add(product));
+						// keep the persistence context from growing with the table
+						if(++scanned % CLEAR_INTERVAL == 0)
+							entityManager.clear();
+					}
+				}
+			}));
+			builders.forEach(CatalogView.Builder::publish);
+			return true;
+		} catch (RuntimeException e) {
+			log.warn("Catalog could not be loaded, indexed reads will use the database", e);
+			return false;
+		}
+	}
+}
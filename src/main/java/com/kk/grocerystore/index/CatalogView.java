@@ -0,0 +1,42 @@
+package com.kk.grocerystore.index;
+
+import java.util.Collection;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.model.Product;
+
+/**
+ * An in-memory view of the catalog, filled by CatalogLoader from a scan of
+ * the Products table shared with the other views and kept current from
+ * ProductChangedEvent.
+ * <p>
+ * A view ignores events until its first load is published; the loader
+ * replays the products changed while a load was running once every view
+ * of that load has published.
+ */
+public interface CatalogView {
+
+	/**
+	 * Starts a replacement built from a full scan. Products arrive in id
+	 * order and are detached soon after, so whatever is kept must be copied.
+	 */
+	Builder newBuilder();
+
+	void onProductChanged(ProductChangedEvent event);
+
+	default void replaceAll(Collection<Product> products) {
+		Builder builder = newBuilder();
+		products.forEach(builder::add);
+		builder.publish();
+	}
+
+	interface Builder {
+
+		void add(Product product);
+
+		/**
+		 * Swaps the built state in, from then on the view applies events.
+		 */
+		void publish();
+	}
+}
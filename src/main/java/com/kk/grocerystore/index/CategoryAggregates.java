@@ -0,0 +1,209 @@
+package com.kk.grocerystore.index;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-category inventory totals kept current from ProductChangedEvent, so a
+ * read costs one pass over the categories.
+ * <p>
+ * Each product's last contribution is remembered; a change subtracts it and
+ * adds the product's current state, which also makes re-applying an event
+ * harmless. A scheduled reconciliation compares the totals with a GROUP BY
+ * over the table and rebuilds them if they drifted, e.g. after writes made
+ * outside this application.
+ * <p>
+ * A rebuild is a CatalogLoader scan into new totals that are swapped in at
+ * the end, so reads and events are never blocked by the scan.
+ */
+@Slf4j
+@Component
+public class CategoryAggregates implements CatalogView {
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CatalogLoader catalogLoader;
+
+	// also held while a change loads its products from the database
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// guarded by lock
+	private Map<Long, Contribution> contributions = new HashMap<>();
+	private Map<String, Totals> totals = new HashMap<>();
+	private boolean loaded;
+
+	/**
+	 * Totals ordered by category, or empty while the aggregates are not loaded yet.
+	 */
+	public Optional<List<CategoryAggregate>> current() {
+		lock.lock();
+		try {
+			if(!loaded)
+				return Optional.empty();
+			return Optional.of(snapshot());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${grocerystore.aggregates.reconcile-interval-ms:300000}",
+			   initialDelayString = "${grocerystore.aggregates.reconcile-interval-ms:300000}")
+	public void reconcile() {
+		List<CategoryAggregate> stored;
+		try {
+			stored = productRepository.aggregateByCategory();
+		} catch (RuntimeException e) {
+			log.warn("Category aggregates could not be reconciled", e);
+			return;
+		}
+		lock.lock();
+		try {
+			// a write committed between the query and this check only causes an unneeded rebuild
+			if(loaded && stored.equals(snapshot()))
+				return;
+		} finally {
+			lock.unlock();
+		}
+		log.warn("Category aggregates drifted from the database, rebuilding");
+		catalogLoader.load(List.of(this));
+	}
+
+	@Override
+	public Builder newBuilder() {
+		Map<Long, Contribution> builtContributions = new HashMap<>();
+		Map<String, Totals> builtTotals = new HashMap<>();
+		return new Builder() {
+
+			@Override
+			public void add(Product product) {
+				CategoryAggregates.add(builtContributions, builtTotals, product);
+			}
+
+			@Override
+			public void publish() {
+				lock.lock();
+				try {
+					contributions = builtContributions;
+					totals = builtTotals;
+					loaded = true;
+				} finally {
+					lock.unlock();
+				}
+			}
+		};
+	}
+
+	@Override
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		lock.lock();
+		try {
+			// changes made before the first load are replayed by CatalogLoader
+			if(!loaded)
+				return;
+			apply(event.getProductIds(), event.currentProducts(ids -> productRepository.findAllById(ids)));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void apply(Collection<Long> changedIds, Collection<Product> currentProducts) {
+		for(Long id : changedIds) {
+			Contribution previous = contributions.remove(id);
+			if(previous != null)
+				totals.get(previous.category).subtract(previous);
+		}
+		currentProducts.forEach(product -> add(contributions, totals, product));
+		totals.values().removeIf(category -> category.skuCount == 0);
+	}
+
+	private static void add(Map<Long, Contribution> contributions, Map<String, Totals> totals, Product product) {
+		Contribution contribution = Contribution.of(product);
+		Contribution previous = contributions.put(product.getId(), contribution);
+		if(previous != null)
+			totals.get(previous.category).subtract(previous);
+		totals.computeIfAbsent(contribution.category, category -> new Totals()).add(contribution);
+	}
+
+	private List<CategoryAggregate> snapshot() {
+		return totals.entrySet()
+					 .stream()
+					 .map(entry -> entry.getValue().toAggregate(entry.getKey()))
+					 .sorted(Comparator.comparing(CategoryAggregate::getCategory))
+					 .collect(Collectors.toList());
+	}
+
+	private static final class Contribution {
+
+		private final String category;
+
+		private final long units;
+
+		private final long valueCents;
+
+		private final boolean outOfStock;
+
+		private Contribution(String category, long units, long valueCents, boolean outOfStock) {
+			this.category = category;
+			this.units = units;
+			this.valueCents = valueCents;
+			this.outOfStock = outOfStock;
+		}
+
+		private static Contribution of(Product product) {
+			long units = product.getRemainingQuantity() == null ? 0 : product.getRemainingQuantity();
+			long priceCents = product.getPricePerUnit() == null ? 0 : PriceIndex.toCents(product.getPricePerUnit());
+			return new Contribution(product.getCategory(), units, Math.multiplyExact(units, priceCents), units <= 0);
+		}
+	}
+
+	private static final class Totals {
+
+		private long skuCount;
+
+		private long units;
+
+		private long valueCents;
+
+		private long outOfStock;
+
+		private void add(Contribution contribution) {
+			skuCount++;
+			units += contribution.units;
+			valueCents += contribution.valueCents;
+			outOfStock += contribution.outOfStock ? 1 : 0;
+		}
+
+		private void subtract(Contribution contribution) {
+			skuCount--;
+			units -= contribution.units;
+			valueCents -= contribution.valueCents;
+			outOfStock -= contribution.outOfStock ? 1 : 0;
+		}
+
+		private CategoryAggregate toAggregate(String category) {
+			return new CategoryAggregate(category, skuCount, units, BigDecimal.valueOf(valueCents, 2), outOfStock);
+		}
+	}
+}
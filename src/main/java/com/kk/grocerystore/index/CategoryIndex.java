@@ -0,0 +1,221 @@
+package com.kk.grocerystore.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.kk.grocerystore.dto.ProductListing;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+
+/**
+ * Immutable in-memory snapshot of the catalog keyed by category, swapped
+ * atomically on every change so readers never lock or touch the database.
+ * <p>
+ * In SYNCHRONOUS mode each write through ProductService copies only the
+ * affected category lists and publishes a new snapshot before the write's
+ * listeners return. In PERIODIC mode writes are ignored and the whole
+ * snapshot is rebuilt from the database every refresh interval.
+ * <p>
+ * Every snapshot carries its own version, returned with the products it
+ * served, so a validator built from it can never describe another snapshot.
+ * <p>
+ * Returned lists and products are shared with other readers and must be
+ * treated as read-only.
+ */
+@Component
+public class CategoryIndex implements CatalogView {
+
+	public enum Consistency {
+		SYNCHRONOUS, PERIODIC
+	}
+
+	private static final Comparator<Product> BY_ID = Comparator.comparing(Product::getId);
+
+	@Value("${grocerystore.catalog.consistency:SYNCHRONOUS}")
+	private Consistency consistency;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CatalogLoader catalogLoader;
+
+	private volatile Snapshot snapshot;
+
+	// held across the database load of a change, so not a monitor: that would pin a virtual thread
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	// writer-side bookkeeping, guarded by writeLock
+	private Map<Long, String> categoryOf = new HashMap<>();
+	// starts from the startup time so versions are not reused across restarts
+	private long lastVersion = System.currentTimeMillis() * 1_000_000L;
+
+	/**
+	 * Products of the category in id order with the version of the snapshot
+	 * they came from, or empty while the index is not loaded yet.
+	 */
+	public Optional<ProductListing> findByCategory(String category) {
+		Snapshot current = snapshot;
+		if(current == null)
+			return Optional.empty();
+		CategoryProducts products = current.categories.get(category);
+		return Optional.of(new ProductListing(products == null ? List.of() : products.all, current.version));
+	}
+
+	/**
+	 * Products with stock left with the version of the snapshot they came
+	 * from, or empty while the index is not loaded yet.
+	 */
+	public Optional<ProductListing> findInStock() {
+		Snapshot current = snapshot;
+		if(current == null)
+			return Optional.empty();
+		List<Product> inStock = new ArrayList<>();
+		current.categories.values().forEach(products -> inStock.addAll(products.inStock));
+		return Optional.of(new ProductListing(inStock, current.version));
+	}
+
+	@Scheduled(fixedDelayString = "${grocerystore.catalog.refresh-interval-ms:30000}",
+			   initialDelayString = "${grocerystore.catalog.refresh-interval-ms:30000}")
+	public void refresh() {
+		if(consistency == Consistency.PERIODIC)
+			catalogLoader.load(List.of(this));
+	}
+
+	@Override
+	public Builder newBuilder() {
+		Map<Long, String> builtCategoryOf = new HashMap<>();
+		Map<String, List<Product>> byCategory = new HashMap<>();
+		return new Builder() {
+
+			@Override
+			public void add(Product product) {
+				builtCategoryOf.put(product.getId(), product.getCategory());
+				byCategory.computeIfAbsent(product.getCategory(), category -> new ArrayList<>()).add(copy(product));
+			}
+
+			@Override
+			public void publish() {
+				Map<String, CategoryProducts> categories = new HashMap<>();
+				byCategory.forEach((category, list) -> {
+					list.sort(BY_ID);
+					categories.put(category, new CategoryProducts(list));
+				});
+				writeLock.lock();
+				try {
+					categoryOf = builtCategoryOf;
+					snapshot = new Snapshot(categories, ++lastVersion);
+				} finally {
+					writeLock.unlock();
+				}
+			}
+		};
+	}
+
+	@Override
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if(consistency != Consistency.SYNCHRONOUS)
+			return;
+		writeLock.lock();
+		try {
+			// changes made before the first load are replayed by CatalogLoader
+			if(snapshot == null)
+				return;
+			// loading under the lock keeps concurrent writes applied in commit order
+			apply(event.getProductIds(), event.currentProducts(ids -> productRepository.findAllById(ids)));
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Copy-on-write update: removes the given ids, adds the current products
+	 * back and swaps in a snapshot that only copies the touched categories.
+	 */
+	private void apply(Collection<Long> changedIds, Collection<Product> currentProducts) {
+		writeLock.lock();
+		try {
+			Map<String, List<Product>> touched = new HashMap<>();
+			Map<String, Set<Long>> removedByCategory = new HashMap<>();
+			for(Long id : changedIds) {
+				String category = categoryOf.remove(id);
+				if(category != null)
+					removedByCategory.computeIfAbsent(category, c -> new HashSet<>()).add(id);
+			}
+			removedByCategory.forEach((category, ids) -> {
+				List<Product> products = touched.computeIfAbsent(category, c -> mutableCopy(c));
+				products.removeIf(product -> ids.contains(product.getId()));
+			});
+			for(Product product : currentProducts) {
+				categoryOf.put(product.getId(), product.getCategory());
+				touched.computeIfAbsent(product.getCategory(), c -> mutableCopy(c)).add(copy(product));
+			}
+
+			Map<String, CategoryProducts> categories = new HashMap<>(snapshot.categories);
+			touched.forEach((category, products) -> {
+				if(products.isEmpty()) {
+					categories.remove(category);
+					return;
+				}
+				products.sort(BY_ID);
+				categories.put(category, new CategoryProducts(products));
+			});
+			snapshot = new Snapshot(categories, ++lastVersion);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private List<Product> mutableCopy(String category) {
+		CategoryProducts products = snapshot.categories.get(category);
+		return products == null ? new ArrayList<>() : new ArrayList<>(products.all);
+	}
+
+	private static Product copy(Product product) {
+		return product.toBuilder().build();
+	}
+
+	private static final class Snapshot {
+
+		private final Map<String, CategoryProducts> categories;
+
+		private final long version;
+
+		private Snapshot(Map<String, CategoryProducts> categories, long version) {
+			this.categories = Map.copyOf(categories);
+			this.version = version;
+		}
+	}
+
+	private static final class CategoryProducts {
+
+		private final List<Product> all;
+
+		private final List<Product> inStock;
+
+		private CategoryProducts(List<Product> products) {
+			this.all = List.copyOf(products);
+			this.inStock = products.stream()
+								   .filter(product -> product.getRemainingQuantity() != null
+										   && product.getRemainingQuantity() > 0)
+								   .collect(Collectors.toUnmodifiableList());
+		}
+	}
+}
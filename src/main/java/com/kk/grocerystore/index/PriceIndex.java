@@ -0,0 +1,350 @@
+package com.kk.grocerystore.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+
+/**
+ * Products per category ordered by price, with prices held as long cents in
+ * a primitive array so range bounds are found by binary search without
+ * touching a BigDecimal. Like CategoryIndex the per-category arrays are
+ * immutable and replaced copy-on-write, so readers never lock.
+ * <p>
+ * Prices are rounded half-up to whole cents; products without a price are
+ * not indexed. Returned products are shared and must be treated as read-only.
+ */
+@Component
+public class PriceIndex implements CatalogView {
+
+	private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+	private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private volatile Map<String, SortedPrices> categories;
+
+	// writers load their products while holding it
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	// writer-side bookkeeping, guarded by writeLock
+	private Map<Long, String> categoryOf = new HashMap<>();
+
+	/**
+	 * Products priced within [min, max] (either bound may be null), cheapest
+	 * or most expensive first with ties broken by id in the same direction;
+	 * empty while the index is not loaded.
+	 * A null category searches all categories.
+	 */
+	public Optional<List<Product>> findByPrice(String category, BigDecimal min, BigDecimal max,
+											   boolean descending, int limit) {
+		Map<String, SortedPrices> current = categories;
+		if(current == null)
+			return Optional.empty();
+		long low = min == null ? Long.MIN_VALUE : toBound(min.movePointRight(2).setScale(0, RoundingMode.CEILING));
+		long high = max == null ? Long.MAX_VALUE : toBound(max.movePointRight(2).setScale(0, RoundingMode.FLOOR));
+		if(low > high || limit < 1)
+			return Optional.of(List.of());
+
+		Collection<SortedPrices> sources;
+		if(category == null) {
+			sources = current.values();
+		} else {
+			SortedPrices prices = current.get(category);
+			sources = prices == null ? List.of() : List.of(prices);
+		}
+		return Optional.of(merge(sources, low, high, descending, limit));
+	}
+
+	@Override
+	public Builder newBuilder() {
+		Map<Long, String> builtCategoryOf = new HashMap<>();
+		Map<String, List<Product>> byCategory = new HashMap<>();
+		return new Builder() {
+
+			@Override
+			public void add(Product product) {
+				if(product.getPricePerUnit() == null)
+					return;
+				builtCategoryOf.put(product.getId(), product.getCategory());
+				byCategory.computeIfAbsent(product.getCategory(), category -> new ArrayList<>()).add(copy(product));
+			}
+
+			@Override
+			public void publish() {
+				Map<String, SortedPrices> built = new HashMap<>();
+				byCategory.forEach((category, list) -> built.put(category, SortedPrices.of(list)));
+				writeLock.lock();
+				try {
+					categoryOf = builtCategoryOf;
+					categories = Map.copyOf(built);
+				} finally {
+					writeLock.unlock();
+				}
+			}
+		};
+	}
+
+	@Override
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		writeLock.lock();
+		try {
+			// changes made before the first load are replayed by CatalogLoader
+			if(categories == null)
+				return;
+			apply(event.getProductIds(), event.currentProducts(ids -> productRepository.findAllById(ids)));
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes and inserts only the changed entries of each touched category;
+	 * the rest of its arrays is copied in order, never sorted again.
+	 */
+	private void apply(Collection<Long> changedIds, Collection<Product> currentProducts) {
+		Map<String, Set<Long>> removedByCategory = new HashMap<>();
+		for(Long id : changedIds) {
+			String category = categoryOf.remove(id);
+			if(category != null)
+				removedByCategory.computeIfAbsent(category, c -> new HashSet<>()).add(id);
+		}
+		Map<String, List<Product>> addedByCategory = new HashMap<>();
+		for(Product product : currentProducts) {
+			if(product.getPricePerUnit() == null)
+				continue;
+			categoryOf.put(product.getId(), product.getCategory());
+			addedByCategory.computeIfAbsent(product.getCategory(), c -> new ArrayList<>()).add(copy(product));
+		}
+
+		Set<String> touched = new HashSet<>(removedByCategory.keySet());
+		touched.addAll(addedByCategory.keySet());
+		Map<String, SortedPrices> updated = new HashMap<>(categories);
+		for(String category : touched) {
+			SortedPrices prices = updated.getOrDefault(category, SortedPrices.EMPTY);
+			Set<Long> removed = removedByCategory.get(category);
+			if(removed != null)
+				prices = prices.without(removed);
+			List<Product> added = addedByCategory.get(category);
+			if(added != null)
+				prices = prices.with(added);
+			if(prices.products.length == 0)
+				updated.remove(category);
+			else
+				updated.put(category, prices);
+		}
+		categories = Map.copyOf(updated);
+	}
+
+	private static List<Product> merge(Collection<SortedPrices> sources, long low, long high,
+									   boolean descending, int limit) {
+		// one cursor per category, advanced through a heap until limit products are taken
+		PriorityQueue<Cursor> heap = new PriorityQueue<>();
+		for(SortedPrices prices : sources) {
+			int from = prices.lowerBound(low);
+			int to = prices.upperBound(high);
+			if(from < to)
+				heap.add(descending ? new Cursor(prices, to - 1, from - 1, -1) : new Cursor(prices, from, to, 1));
+		}
+		List<Product> result = new ArrayList<>(Math.min(limit, 256));
+		while(!heap.isEmpty() && result.size() < limit) {
+			Cursor cursor = heap.poll();
+			result.add(cursor.prices.products[cursor.position]);
+			cursor.position += cursor.step;
+			if(cursor.position != cursor.end)
+				heap.add(cursor);
+		}
+		return result;
+	}
+
+	// bounds beyond the range of long cents match everything or nothing on that side
+	private static long toBound(BigDecimal cents) {
+		if(cents.compareTo(MAX_CENTS) > 0)
+			return Long.MAX_VALUE;
+		if(cents.compareTo(MIN_CENTS) < 0)
+			return Long.MIN_VALUE;
+		return cents.longValueExact();
+	}
+
+	static long toCents(BigDecimal price) {
+		return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+	}
+
+	private static Product copy(Product product) {
+		return product.toBuilder().build();
+	}
+
+	/**
+	 * One category sorted by (cents, id); cents[i] is the price of products[i].
+	 */
+	private static final class SortedPrices {
+
+		private final long[] cents;
+
+		private final long[] ids;
+
+		private final Product[] products;
+
+		private SortedPrices(long[] cents, long[] ids, Product[] products) {
+			this.cents = cents;
+			this.ids = ids;
+			this.products = products;
+		}
+
+		private static final SortedPrices EMPTY = new SortedPrices(new long[0], new long[0], new Product[0]);
+
+		private static SortedPrices of(List<Product> unsorted) {
+			return EMPTY.with(unsorted);
+		}
+
+		/** A copy without the given ids, in one pass over the arrays. */
+		private SortedPrices without(Set<Long> removed) {
+			long[] removedIds = removed.stream().mapToLong(Long::longValue).sorted().toArray();
+			long[] keptCents = new long[cents.length];
+			long[] keptIds = new long[ids.length];
+			Product[] keptProducts = new Product[products.length];
+			int size = 0;
+			for(int i = 0; i < ids.length; i++) {
+				if(Arrays.binarySearch(removedIds, ids[i]) >= 0)
+					continue;
+				keptCents[size] = cents[i];
+				keptIds[size] = ids[i];
+				keptProducts[size] = products[i];
+				size++;
+			}
+			return new SortedPrices(Arrays.copyOf(keptCents, size), Arrays.copyOf(keptIds, size),
+									Arrays.copyOf(keptProducts, size));
+		}
+
+		/**
+		 * A copy with the given products merged in: only they are sorted, then
+		 * both runs are merged into the new arrays.
+		 */
+		private SortedPrices with(List<Product> added) {
+			Entry[] entries = new Entry[added.size()];
+			for(int i = 0; i < entries.length; i++)
+				entries[i] = new Entry(toCents(added.get(i).getPricePerUnit()), added.get(i));
+			Arrays.sort(entries);
+
+			int size = cents.length + entries.length;
+			long[] mergedCents = new long[size];
+			long[] mergedIds = new long[size];
+			Product[] mergedProducts = new Product[size];
+			int existing = 0;
+			int next = 0;
+			for(int i = 0; i < size; i++) {
+				boolean takeExisting = next == entries.length
+						|| existing < cents.length && compare(cents[existing], ids[existing], entries[next]) < 0;
+				if(takeExisting) {
+					mergedCents[i] = cents[existing];
+					mergedIds[i] = ids[existing];
+					mergedProducts[i] = products[existing];
+					existing++;
+				} else {
+					mergedCents[i] = entries[next].cents;
+					mergedIds[i] = entries[next].product.getId();
+					mergedProducts[i] = entries[next].product;
+					next++;
+				}
+			}
+			return new SortedPrices(mergedCents, mergedIds, mergedProducts);
+		}
+
+		private static int compare(long cents, long id, Entry entry) {
+			int byPrice = Long.compare(cents, entry.cents);
+			return byPrice != 0 ? byPrice : Long.compare(id, entry.product.getId());
+		}
+
+		/** First index with a price >= value. */
+		private int lowerBound(long value) {
+			int low = 0;
+			int high = cents.length;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(cents[mid] < value)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+
+		/** First index with a price > value. */
+		private int upperBound(long value) {
+			int low = 0;
+			int high = cents.length;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(cents[mid] <= value)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+	}
+
+	private static final class Entry implements Comparable<Entry> {
+
+		private final long cents;
+
+		private final Product product;
+
+		private Entry(long cents, Product product) {
+			this.cents = cents;
+			this.product = product;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			int byPrice = Long.compare(cents, other.cents);
+			return byPrice != 0 ? byPrice : Long.compare(product.getId(), other.product.getId());
+		}
+	}
+
+	private static final class Cursor implements Comparable<Cursor> {
+
+		private final SortedPrices prices;
+
+		private int position;
+
+		private final int end;
+
+		private final int step;
+
+		private Cursor(SortedPrices prices, int position, int end, int step) {
+			this.prices = prices;
+			this.position = position;
+			this.end = end;
+			this.step = step;
+		}
+
+		@Override
+		public int compareTo(Cursor other) {
+			int byPrice = Long.compare(prices.cents[position], other.prices.cents[other.position]);
+			if(byPrice == 0)
+				byPrice = Long.compare(prices.ids[position], other.prices.ids[other.position]);
+			return step > 0 ? byPrice : -byPrice;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.kk.grocerystore.index;
+
+import java.util.Locale;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.model.Product;
+
+/**
+ * Bloom filter of product names used to skip the duplicate-name lookup on
+ * create. Until the initial load finishes, or when disabled, every name is
+ * reported as a possible hit so callers fall back to the database. The
+ * unique index on name stays the source of truth.
+ */
+@Component
+public class ProductNameIndex implements CatalogView {
+
+	@Value("${grocerystore.name-index.enabled:true}")
+	private boolean enabled;
+	
+	@Value("${grocerystore.name-index.expected-names:1000000}")
+	private long expectedNames;
+	
+	@Value("${grocerystore.name-index.false-positive-rate:0.01}")
+	private double falsePositiveRate;
+	
+	private BloomFilter filter;
+	
+	private volatile boolean ready;
+	
+	@PostConstruct
+	void init() {
+		filter = new BloomFilter(expectedNames, falsePositiveRate);
+	}
+	
+	/**
+	 * Names go straight into the live filter; it only answers from it once
+	 * the whole table has been added.
+	 */
+	@Override
+	public Builder newBuilder() {
+		return new Builder() {
+			
+			@Override
+			public void add(Product product) {
+				ProductNameIndex.this.add(product.getName());
+			}
+			
+			@Override
+			public void publish() {
+				ready = true;
+			}
+		};
+	}
+	
+	/**
+	 * Names are added by ProductService on create and never removed, so
+	 * there is nothing to apply.
+	 */
+	@Override
+	public void onProductChanged(ProductChangedEvent event) {
+	}
+	
+	public boolean mightContain(String name) {
+		if(!enabled || !ready || name == null)
+			return true;
+		return filter.mightContain(normalize(name));
+	}
+	
+	public void add(String name) {
+		if(name != null)
+			filter.add(normalize(name));
+	}
+	
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	// MySQL's default collation compares names case-insensitively
+	private static String normalize(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,106 @@
+package com.kk.grocerystore.limiter;
+
+/**
+ * Concurrency limit that follows the latency of completed requests, in the
+ * style of a gradient limiter: while recent latency stays close to the
+ * long-term average the limit grows by a small queue allowance, and as
+ * latency rises above it the limit shrinks in proportion. Failed requests
+ * back off multiplicatively, like AIMD.
+ * <p>
+ * The limit only grows while at least half of it is in use, so an idle
+ * endpoint does not build up a limit it has never been tested at.
+ */
+public class AdaptiveConcurrencyLimit {
+
+	// how much slower than the long-term average recent requests may get before the limit shrinks
+	private static final double TOLERANCE = 1.5;
+	
+	private static final double SMOOTHING = 0.2;
+	
+	private static final double BACKOFF = 0.9;
+	
+	// EWMA weights: recent latency reacts within tens of requests, the baseline over hundreds
+	private static final double SHORT_WEIGHT = 0.1;
+	
+	private static final double LONG_WEIGHT = 0.005;
+	
+	private final int minLimit;
+	
+	private final int maxLimit;
+	
+	// guarded by this
+	private double limit;
+	private int inFlight;
+	private double shortRtt;
+	private double longRtt;
+	
+	public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+	}
+	
+	/**
+	 * Takes a slot, or returns false when the limit is reached and the
+	 * request should be rejected.
+	 */
+	public synchronized boolean tryAcquire() {
+		if(inFlight >= (int) limit)
+			return false;
+		inFlight++;
+		return true;
+	}
+	
+	/**
+	 * Frees the slot of a request that completed normally after rttNanos.
+	 */
+	public synchronized void onSuccess(long rttNanos) {
+		int inFlightBefore = inFlight;
+		inFlight--;
+		if(longRtt == 0) {
+			shortRtt = rttNanos;
+			longRtt = rttNanos;
+			return;
+		}
+		shortRtt += SHORT_WEIGHT * (rttNanos - shortRtt);
+		longRtt += LONG_WEIGHT * (rttNanos - longRtt);
+		// after a sustained slowdown the baseline is pulled down, so recovery is measured from a sane level
+		if(longRtt > 2 * shortRtt)
+			longRtt *= 0.95;
+		
+		if(inFlightBefore < limit / 2)
+			return;
+		double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+		double target = limit * gradient + Math.sqrt(limit);
+		setLimit(limit * (1 - SMOOTHING) + target * SMOOTHING);
+	}
+	
+	/**
+	 * Frees the slot of a request that failed or timed out.
+	 */
+	public synchronized void onDropped() {
+		inFlight--;
+		setLimit(limit * BACKOFF);
+	}
+	
+	/**
+	 * Frees the slot of a request whose duration says nothing about the
+	 * service's latency, such as a stream paced by its client; neither the
+	 * latency averages nor the limit change.
+	 */
+	public synchronized void onIgnore() {
+		inFlight--;
+	}
+	
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+	
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+	
+	private void setLimit(double newLimit) {
+		limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+	}
+}
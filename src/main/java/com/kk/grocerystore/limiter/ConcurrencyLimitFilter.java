@@ -0,0 +1,179 @@
+package com.kk.grocerystore.limiter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sheds /api requests with 503 and Retry-After once the adaptive limit of
+ * their class is in flight, so a slow database queues work at the client
+ * instead of in the Tomcat and Hikari pools. Reads (GET, HEAD) and writes
+ * have separate limits, so a burst of one cannot starve the other.
+ * <p>
+ * Streaming responses keep their slot until the async request completes,
+ * but are not sampled: an export runs at the client's pace for minutes, and
+ * its duration would drag the latency baseline far above that of ordinary
+ * requests. Only a server error on completion still backs the limit off.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(name = "grocerystore.limiter.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	@Value("${grocerystore.limiter.initial-limit:20}")
+	private int initialLimit;
+	
+	@Value("${grocerystore.limiter.min-limit:4}")
+	private int minLimit;
+	
+	@Value("${grocerystore.limiter.read.max-limit:200}")
+	private int maxReadLimit;
+	
+	@Value("${grocerystore.limiter.write.max-limit:50}")
+	private int maxWriteLimit;
+	
+	@Value("${grocerystore.limiter.retry-after-seconds:1}")
+	private int retryAfterSeconds;
+	
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistry;
+	
+	private AdaptiveConcurrencyLimit reads;
+	
+	private AdaptiveConcurrencyLimit writes;
+	
+	@PostConstruct
+	public void init() {
+		reads = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxReadLimit);
+		writes = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxWriteLimit);
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if(registry != null) {
+			registerGauges(registry, "read", reads);
+			registerGauges(registry, "write", writes);
+		}
+	}
+	
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+		AdaptiveConcurrencyLimit limit = read ? reads : writes;
+		if(!limit.tryAcquire()) {
+			reject(response, read ? "read" : "write");
+			return;
+		}
+		
+		long start = System.nanoTime();
+		boolean completed = false;
+		try {
+			filterChain.doFilter(request, response);
+			completed = true;
+		} finally {
+			if(!completed)
+				limit.onDropped();
+			else if(request.isAsyncStarted())
+				request.getAsyncContext().addListener(new ReleaseOnCompletion(limit));
+			else
+				release(limit, start, response.getStatus());
+		}
+	}
+	
+	private void reject(HttpServletResponse response, String kind) throws IOException {
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if(registry != null)
+			registry.counter("grocerystore.limiter.rejected", "class", kind).increment();
+		response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+		response.setContentType("text/plain");
+		response.getWriter().write("Server busy, retry later");
+	}
+	
+	private static void release(AdaptiveConcurrencyLimit limit, long start, int status) {
+		// server errors are usually the overload itself (pool timeouts), so they count as drops
+		if(status >= 500)
+			limit.onDropped();
+		else
+			limit.onSuccess(System.nanoTime() - start);
+	}
+	
+	private static void registerGauges(MeterRegistry registry, String kind, AdaptiveConcurrencyLimit limit) {
+		Gauge.builder("grocerystore.limiter.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+			 .description("Current adaptive concurrency limit")
+			 .tag("class", kind)
+			 .register(registry);
+		Gauge.builder("grocerystore.limiter.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+			 .description("Requests holding a concurrency slot")
+			 .tag("class", kind)
+			 .register(registry);
+	}
+	
+	/**
+	 * Releases the slot of an async request exactly once, without a latency
+	 * sample; onComplete also follows a timeout or error. A timeout or error
+	 * is usually the client going away mid-stream, not an overload.
+	 */
+	private static final class ReleaseOnCompletion implements AsyncListener {
+		
+		private final AdaptiveConcurrencyLimit limit;
+		
+		private final AtomicBoolean released = new AtomicBoolean();
+		
+		private ReleaseOnCompletion(AdaptiveConcurrencyLimit limit) {
+			this.limit = limit;
+		}
+		
+		@Override
+		public void onComplete(AsyncEvent event) {
+			if(!released.compareAndSet(false, true))
+				return;
+			if(((HttpServletResponse) event.getSuppliedResponse()).getStatus() >= 500)
+				limit.onDropped();
+			else
+				limit.onIgnore();
+		}
+		
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			if(released.compareAndSet(false, true))
+				limit.onIgnore();
+		}
+		
+		@Override
+		public void onError(AsyncEvent event) {
+			if(released.compareAndSet(false, true))
+				limit.onIgnore();
+		}
+		
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+		}
+	}
+}
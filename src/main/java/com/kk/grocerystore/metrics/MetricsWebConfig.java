@@ -0,0 +1,21 @@
+package com.kk.grocerystore.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class MetricsWebConfig implements WebMvcConfigurer {
+
+	@Autowired
+	private SqlStatementMetricsInterceptor sqlStatementMetricsInterceptor;
+	
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(sqlStatementMetricsInterceptor).addPathPatterns("/api/**");
+	}
+}
@@ -0,0 +1,29 @@
+package com.kk.grocerystore.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * Registered through hibernate.session_factory.statement_inspector; the
+ * count is reset and read around each request by SqlStatementMetricsInterceptor.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+	
+	private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+	
+	@Override
+	public String inspect(String sql) {
+		COUNT.get()[0]++;
+		return sql;
+	}
+	
+	public static void reset() {
+		COUNT.get()[0] = 0;
+	}
+	
+	public static int count() {
+		return COUNT.get()[0];
+	}
+}
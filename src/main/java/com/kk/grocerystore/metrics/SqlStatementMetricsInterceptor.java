@@ -0,0 +1,49 @@
+package com.kk.grocerystore.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records how many SQL statements each request issued on its handler thread
+ * as the http.server.sql.statements summary, tagged like http.server.requests.
+ * Statements of streaming bodies written on the async executor are not counted.
+ */
+@Component
+public class SqlStatementMetricsInterceptor implements HandlerInterceptor {
+
+	public static final String METRIC_NAME = "http.server.sql.statements";
+	
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistry;
+	
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		SqlStatementCounter.reset();
+		return true;
+	}
+	
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if(registry == null)
+			return;
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		DistributionSummary.builder(METRIC_NAME)
+						   .description("SQL statements issued per request")
+						   .tag("method", request.getMethod())
+						   .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+						   .tag("status", Integer.toString(response.getStatus()))
+						   .publishPercentiles(0.5, 0.95, 0.99)
+						   .register(registry)
+						   .record(SqlStatementCounter.count());
+	}
+}
@@ -0,0 +1,32 @@
+package com.kk.grocerystore.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One slice of the persisted catalog version. Every product write bumps one
+ * stripe in its own transaction and the version is the sum of all stripes,
+ * so concurrent writers rarely wait on the same row.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table (name = "catalog_version")
+public class CatalogVersionStripe {
+
+	@Id
+	private Integer stripe;
+	
+	@Column (nullable = false)
+	private long version;
+
+}
@@ -0,0 +1,57 @@
+package com.kk.grocerystore.model;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A product change waiting to be delivered downstream, written in the
+ * transaction of the change itself. payload is the product as JSON when the
+ * writer had it in hand, null for deletes and statement-level updates.
+ */
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table (name = "product_outbox")
+public class OutboxEvent {
+
+	// pooled like product ids so the entries of a bulk write are inserted in batches
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+	@SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+	private Long id;
+	
+	@Column (name = "product_id", nullable = false)
+	private Long productId;
+	
+	@Enumerated(EnumType.STRING)
+	@Column (nullable = false, length = 16)
+	private ChangeType type;
+	
+	@Lob
+	private String payload;
+	
+	@Column (name = "created_at", nullable = false)
+	private Instant createdAt;
+	
+}
@@ -2,12 +2,20 @@ package com.kk.grocerystore.model;
 
 import java.math.BigDecimal;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,17 +23,36 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table (name = "Products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
+@Table (name = "Products",
+		uniqueConstraints = @UniqueConstraint(name = Product.NAME_CONSTRAINT, columnNames = "name"),
+		indexes = {
+			// InnoDB appends the primary key, so this serves category keyset pages (category = ? and id > ? order by id)
+			@Index(name = "ix_products_category", columnList = "category"),
+			// price ranges within a category
+			@Index(name = "ix_products_category_price", columnList = "category, price_per_unit"),
+			@Index(name = "ix_products_price", columnList = "price_per_unit")
+		})
 public class Product {
 
+	public static final String NAME_CONSTRAINT = "ux_products_name";
+	
+	public static final String CACHE_REGION = "products";
+	
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	// pooled ids instead of IDENTITY so Hibernate can batch inserts;
+	// on MySQL the sequence is emulated with a product_seq table, see ProductSequenceMigration
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+	@SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = ID_ALLOCATION_SIZE)
 	private Long id;
 	
 	@Column (nullable = false)
@@ -45,5 +72,9 @@ public class Product {
 	@Column (name = "price_per_unit")
 	private BigDecimal pricePerUnit;
 	
+	// default keeps rows created before this column existed readable as version 0
+	@Version
+	@Column (nullable = false, columnDefinition = "bigint default 0")
+	private Long version;
 	
 }
@@ -0,0 +1,60 @@
+package com.kk.grocerystore.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.kk.grocerystore.model.OutboxEvent;
+
+/**
+ * Stand-in sink that appends one JSON line per entry to a local file and
+ * forces it to disk before the batch is removed from the outbox.
+ */
+@Component
+@ConditionalOnProperty(name = "grocerystore.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+	@Value("${grocerystore.outbox.file:outbox.ndjson}")
+	private Path file;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@Override
+	public synchronized void publish(List<OutboxEvent> events) {
+		StringBuilder lines = new StringBuilder();
+		for(OutboxEvent event : events) {
+			ObjectNode line = objectMapper.createObjectNode()
+										  .put("id", event.getId())
+										  .put("productId", event.getProductId())
+										  .put("type", event.getType().name())
+										  .put("createdAt", event.getCreatedAt().toString());
+			if(event.getPayload() != null)
+				line.putRawValue("product", new RawValue(event.getPayload()));
+			lines.append(line.toString()).append('\n');
+		}
+		
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+												   StandardOpenOption.WRITE, StandardOpenOption.APPEND)){
+			ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not append outbox entries to " + file, e);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.kk.grocerystore.outbox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.kk.grocerystore.model.OutboxEvent;
+
+/**
+ * Stand-in sink that keeps the most recently delivered entries in memory,
+ * for local runs and tests. Nothing survives a restart.
+ */
+@Component
+@ConditionalOnProperty(name = "grocerystore.outbox.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOutboxSink implements OutboxSink {
+
+	@Value("${grocerystore.outbox.memory-capacity:10000}")
+	private int capacity;
+	
+	// guarded by this
+	private final Deque<OutboxEvent> recent = new ArrayDeque<>();
+	
+	@Override
+	public synchronized void publish(List<OutboxEvent> events) {
+		for(OutboxEvent event : events) {
+			if(recent.size() == capacity)
+				recent.removeFirst();
+			recent.addLast(event);
+		}
+	}
+	
+	/**
+	 * Delivered entries, oldest first.
+	 */
+	public synchronized List<OutboxEvent> recent() {
+		return new ArrayList<>(recent);
+	}
+}
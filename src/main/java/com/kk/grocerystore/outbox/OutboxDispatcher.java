@@ -0,0 +1,93 @@
+package com.kk.grocerystore.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kk.grocerystore.model.OutboxEvent;
+import com.kk.grocerystore.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains the outbox into the OutboxSink off the request path. Each batch is
+ * read under a row lock, published and deleted in one transaction; if the
+ * sink or the commit fails the batch stays and is delivered again, so
+ * delivery is at-least-once and in outbox order.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "grocerystore.outbox.dispatch-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxDispatcher {
+
+	@Value("${grocerystore.outbox.batch-size:500}")
+	private int batchSize;
+	
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+	
+	@Autowired
+	private OutboxSink sink;
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistry;
+	
+	/**
+	 * Delivers full batches back to back until the outbox is drained or a
+	 * batch fails.
+	 */
+	@Scheduled(fixedDelayString = "${grocerystore.outbox.poll-interval-ms:500}")
+	public void dispatch() {
+		int delivered;
+		do {
+			delivered = dispatchBatch();
+		} while(delivered == batchSize);
+	}
+	
+	/**
+	 * @return number of entries delivered, 0 when the outbox was empty or the batch failed
+	 */
+	int dispatchBatch() {
+		long start = System.nanoTime();
+		int delivered;
+		try {
+			delivered = new TransactionTemplate(transactionManager).execute(status -> {
+				List<OutboxEvent> batch = outboxEventRepository.findOldestForUpdate(PageRequest.of(0, batchSize));
+				if(batch.isEmpty())
+					return 0;
+				sink.publish(batch);
+				List<Long> ids = new ArrayList<>(batch.size());
+				batch.forEach(event -> ids.add(event.getId()));
+				outboxEventRepository.deleteByIds(ids);
+				return batch.size();
+			});
+		} catch (RuntimeException e) {
+			log.warn("Outbox batch could not be delivered, it is retried on the next run", e);
+			MeterRegistry registry = meterRegistry.getIfAvailable();
+			if(registry != null)
+				registry.counter("grocerystore.outbox.dispatch.failures").increment();
+			return 0;
+		}
+		
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if(registry != null && delivered > 0) {
+			registry.counter("grocerystore.outbox.dispatched").increment(delivered);
+			registry.timer("grocerystore.outbox.batch").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+		return delivered;
+	}
+}
@@ -0,0 +1,19 @@
+package com.kk.grocerystore.outbox;
+
+import java.util.List;
+
+import com.kk.grocerystore.model.OutboxEvent;
+
+/**
+ * Destination of dispatched outbox entries, e.g. a message broker.
+ * Delivery is at-least-once: a batch is only removed from the outbox after
+ * publish returns, so consumers should skip entry ids they have already seen.
+ */
+public interface OutboxSink {
+
+	/**
+	 * Delivers the batch in outbox order; throwing leaves the whole batch in
+	 * the outbox for the next run.
+	 */
+	public void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,60 @@
+package com.kk.grocerystore.outbox;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.model.OutboxEvent;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.OutboxEventRepository;
+
+/**
+ * Records every ProductChangedEvent in the outbox. A plain EventListener
+ * runs inside the publisher's transaction, so the entries commit or roll
+ * back together with the change; delivery is left to OutboxDispatcher.
+ */
+@Component
+public class OutboxWriter {
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@EventListener
+	public void onProductChanged(ProductChangedEvent event) {
+		Map<Long, Product> products = new HashMap<>();
+		event.getProducts().forEach(product -> products.put(product.getId(), product));
+		
+		Instant now = Instant.now();
+		List<OutboxEvent> entries = new ArrayList<>(event.getProductIds().size());
+		for(Long productId : event.getProductIds())
+			entries.add(OutboxEvent.builder()
+								   .productId(productId)
+								   .type(event.getType())
+								   .payload(payload(products.get(productId)))
+								   .createdAt(now)
+								   .build());
+		outboxEventRepository.saveAll(entries);
+	}
+	
+	private String payload(Product product) {
+		if(product == null)
+			return null;
+		try {
+			return objectMapper.writeValueAsString(product);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize product " + product.getId(), e);
+		}
+	}
+}
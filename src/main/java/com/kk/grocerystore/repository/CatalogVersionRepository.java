@@ -0,0 +1,21 @@
+package com.kk.grocerystore.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.kk.grocerystore.model.CatalogVersionStripe;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersionStripe, Integer> {
+
+	// runs inside product writes, so it must not clear their persistence context
+	@Modifying
+	@Query("update CatalogVersionStripe s set s.version = s.version + 1 where s.stripe = :stripe")
+	public int increment(@Param("stripe") Integer stripe);
+	
+	@Query("Select coalesce(sum(s.version), 0) from CatalogVersionStripe s")
+	public long sumVersions();
+}
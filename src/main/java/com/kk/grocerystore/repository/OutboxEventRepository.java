@@ -0,0 +1,32 @@
+package com.kk.grocerystore.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.kk.grocerystore.model.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+	/**
+	 * Oldest entries, locked until the calling transaction ends so a second
+	 * dispatcher waits instead of delivering the same batch.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("Select e from OutboxEvent e order by e.id")
+	public List<OutboxEvent> findOldestForUpdate(Pageable pageable);
+	
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from OutboxEvent e where e.id in :ids")
+	public int deleteByIds(@Param("ids") Collection<Long> ids);
+}
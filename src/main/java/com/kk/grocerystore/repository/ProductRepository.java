@@ -1,26 +1,169 @@
 package com.kk.grocerystore.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.dto.ProductSummary;
 import com.kk.grocerystore.model.Product;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>{
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom{
 
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
 	public Optional<Product> findByName(String name);
 	
+	@Query("Select p.name from Product p where p.name in :names")
+	public List<String> findExistingNames(@Param("names") Collection<String> names);
+	
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
 	@Query("Select p from Product p where p.category = ?1")
 	public List<Product> findProductsByCategory(String category);
 	
 	@Query("Select p from Product p where p.category = :category")
 	public List<Product> findProductsByCategoryNamed(@Param("category") String category);
 	
-	@Query(value = "select p.* from products p where p.remaining_quantity > 0", nativeQuery = true)
+	/**
+	 * JPQL rather than native SQL so Hibernate knows the query reads the
+	 * Products table and drops the cached result whenever it is written.
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+	@Query("Select p from Product p where p.remainingQuantity > 0")
 	public List<Product> findRemaningProducts();
+	
+	/**
+	 * Keyset (seek) page: rows strictly after the given id in id order.
+	 * Pass a first-page Pageable so no OFFSET is generated.
+	 */
+	@Query("Select p from Product p where p.id > :after order by p.id")
+	public List<Product> findProductsAfter(@Param("after") Long after, Pageable pageable);
+	
+	@Query("Select p from Product p where p.category = :category and p.id > :after order by p.id")
+	public List<Product> findProductsByCategoryAfter(@Param("category") String category,
+													 @Param("after") Long after,
+													 Pageable pageable);
+	
+	/**
+	 * Keyset page of summaries; the constructor expression returns plain
+	 * objects that never enter the persistence context.
+	 */
+	@Query("Select new com.kk.grocerystore.dto.ProductSummary(p.id, p.name, p.pricePerUnit, p.remainingQuantity) "
+			+ "from Product p where p.id > :after order by p.id")
+	public List<ProductSummary> findSummariesAfter(@Param("after") Long after, Pageable pageable);
+	
+	@Query("Select new com.kk.grocerystore.dto.ProductSummary(p.id, p.name, p.pricePerUnit, p.remainingQuantity) "
+			+ "from Product p where p.category = :category and p.id > :after order by p.id")
+	public List<ProductSummary> findSummariesByCategoryAfter(@Param("category") String category,
+															 @Param("after") Long after,
+															 Pageable pageable);
+	
+	/**
+	 * Forward-only cursor over the whole table. Must be consumed inside a
+	 * transaction and closed; the fetch size is only honoured by MySQL when
+	 * the connection url sets useCursorFetch=true.
+	 */
+	@QueryHints({
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+	})
+	@Query("Select p from Product p order by p.id")
+	public Stream<Product> streamAllProducts();
+	
+	/**
+	 * Substring match that scans the table; only used while the in-memory
+	 * search index is loading.
+	 */
+	@Query("Select p from Product p where (lower(p.name) like lower(concat('%', :term, '%')) "
+			+ "or lower(p.description) like lower(concat('%', :term, '%'))) "
+			+ "and (:category is null or p.category = :category) order by p.id")
+	public List<Product> searchByText(@Param("term") String term,
+									  @Param("category") String category,
+									  Pageable pageable);
+	
+	/**
+	 * Prefix match on the unique name index, case-insensitive under MySQL's
+	 * default collation; only used while the name trie is loading.
+	 */
+	@Query("Select p.name from Product p where p.name like concat(:prefix, '%') order by p.remainingQuantity desc")
+	public List<String> findNamesByPrefix(@Param("prefix") String prefix, Pageable pageable);
+	
+	/**
+	 * Price range within a category; order by price through the pageable's
+	 * sort to walk ix_products_category_price.
+	 */
+	@Query("Select p from Product p where p.category = :category and p.pricePerUnit between :min and :max")
+	public List<Product> findByCategoryAndPriceBetween(@Param("category") String category,
+													   @Param("min") BigDecimal min,
+													   @Param("max") BigDecimal max,
+													   Pageable pageable);
+	
+	@Query("Select p from Product p where p.pricePerUnit between :min and :max")
+	public List<Product> findByPriceBetween(@Param("min") BigDecimal min,
+											@Param("max") BigDecimal max,
+											Pageable pageable);
+	
+	@Query("Select new com.kk.grocerystore.dto.CategoryAggregate(p.category, count(p), "
+			+ "coalesce(sum(p.remainingQuantity), 0), "
+			+ "coalesce(sum(p.remainingQuantity * p.pricePerUnit), 0), "
+			+ "sum(case when p.remainingQuantity is null or p.remainingQuantity <= 0 then 1 else 0 end)) "
+			+ "from Product p group by p.category order by p.category")
+	public List<CategoryAggregate> aggregateByCategory();
+	
+	/**
+	 * Ids of the category, locked until the calling transaction ends. On
+	 * InnoDB the locking read takes next-key locks on ix_products_category,
+	 * so no row can move into the category before a statement filtering on
+	 * it runs in the same transaction.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("Select p.id from Product p where p.category = :category")
+	public List<Long> findIdsByCategoryForUpdate(@Param("category") String category);
+	
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from Product p where p.category = :category")
+	public int deleteByCategory(@Param("category") String category);
+	
+	/**
+	 * One DELETE for all ids, unlike deleteById/deleteAllById which load
+	 * every entity before removing it.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from Product p where p.id in :ids")
+	public int deleteByIds(@Param("ids") Collection<Long> ids);
+	
+	@Query("Select p.remainingQuantity from Product p where p.id = :id")
+	public Optional<Integer> findRemainingQuantityById(@Param("id") Long id);
+	
+	/**
+	 * The row read from the database and locked until the calling transaction
+	 * ends. Single-product writes change the loaded entity instead of running
+	 * a statement, so Hibernate replaces just its second-level cache entry; a
+	 * bulk statement evicts the whole products region.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("Select p from Product p where p.id = :id")
+	public Optional<Product> findByIdForUpdate(@Param("id") Long id);
+	
+	/**
+	 * Locking read of several rows, in id order so two writers locking
+	 * overlapping sets cannot deadlock.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("Select p from Product p where p.id in :ids order by p.id")
+	public List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,23 @@
+package com.kk.grocerystore.repository;
+
+import java.util.Collection;
+
+import com.kk.grocerystore.dto.ProductBulkUpdate;
+
+public interface ProductRepositoryCustom {
+
+	/**
+	 * Single UPDATE ... WHERE id IN of the supplied fields of changes,
+	 * bumping the version of every row it touches; the selectors of changes
+	 * are ignored.
+	 * @return number of rows updated
+	 */
+	public int bulkUpdate(Collection<Long> ids, ProductBulkUpdate changes);
+	
+	/**
+	 * Single UPDATE ... WHERE category = of the supplied fields of changes,
+	 * bumping the version of every row it touches.
+	 * @return number of rows updated
+	 */
+	public int bulkUpdateByCategory(String category, ProductBulkUpdate changes);
+}
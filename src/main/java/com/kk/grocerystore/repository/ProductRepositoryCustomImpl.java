@@ -0,0 +1,47 @@
+package com.kk.grocerystore.repository;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.kk.grocerystore.dto.ProductBulkUpdate;
+import com.kk.grocerystore.model.Product;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public int bulkUpdate(Collection<Long> ids, ProductBulkUpdate changes) {
+		return bulkUpdate(changes, product -> product.get("id").in(ids));
+	}
+	
+	@Override
+	public int bulkUpdateByCategory(String category, ProductBulkUpdate changes) {
+		return bulkUpdate(changes, product -> entityManager.getCriteriaBuilder().equal(product.get("category"), category));
+	}
+	
+	private int bulkUpdate(ProductBulkUpdate changes, Function<Root<Product>, Predicate> where) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Product> update = builder.createCriteriaUpdate(Product.class);
+		Root<Product> product = update.from(Product.class);
+		
+		if(changes.getPricePerUnit() != null)
+			update.set(product.get("pricePerUnit"), changes.getPricePerUnit());
+		if(changes.getCategory() != null)
+			update.set(product.<String>get("category"), changes.getCategory());
+		if(changes.getRemainingQuantity() != null)
+			update.set(product.<Integer>get("remainingQuantity"), changes.getRemainingQuantity());
+		update.set(product.<Long>get("version"), builder.sum(product.<Long>get("version"), 1L));
+		update.where(where.apply(product));
+		
+		return entityManager.createQuery(update).executeUpdate();
+	}
+}
@@ -0,0 +1,64 @@
+package com.kk.grocerystore.repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.kk.grocerystore.model.Product;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves product_seq past the ids handed out while Products.id was an
+ * IDENTITY column, so the first pooled block cannot collide with existing
+ * rows. Runs on every start before the web server accepts requests and only
+ * ever raises the sequence, which makes it safe to repeat and to run from
+ * several instances at once.
+ * <p>
+ * Only applies where the sequence is emulated with a product_seq table
+ * (MySQL); databases with native sequences are left alone.
+ */
+@Slf4j
+@Component
+public class ProductSequenceMigration {
+
+	private static final String SEQUENCE_TABLE = "product_seq";
+	
+	// the pooled optimizer hands out (next_val - allocationSize, next_val], so next_val must clear max(id) by a full block
+	private static final String RAISE_SEQUENCE =
+			"update product_seq set next_val = (select coalesce(max(id), 0) from products) + ? + 1 "
+			+ "where next_val <= (select coalesce(max(id), 0) from products) + ?";
+	
+	@Autowired
+	private DataSource dataSource;
+	
+	// schema update creates product_seq while the EntityManagerFactory is built
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	
+	@PostConstruct
+	public void migrate() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		if(!Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+				isTable(connection.getMetaData(), connection.getCatalog()))))
+			return;
+		int raised = jdbcTemplate.update(RAISE_SEQUENCE, Product.ID_ALLOCATION_SIZE, Product.ID_ALLOCATION_SIZE);
+		if(raised > 0)
+			log.info("Moved {} past the existing product ids", SEQUENCE_TABLE);
+	}
+	
+	private static boolean isTable(DatabaseMetaData metaData, String catalog) throws SQLException {
+		try(ResultSet tables = metaData.getTables(catalog, null, SEQUENCE_TABLE, new String[] {"TABLE"})){
+			return tables.next();
+		}
+	}
+}
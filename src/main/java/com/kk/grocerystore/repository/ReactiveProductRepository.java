@@ -0,0 +1,91 @@
+package com.kk.grocerystore.repository;
+
+import java.math.BigDecimal;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.kk.grocerystore.model.Product;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking reads of the Products table over R2DBC for the reactive
+ * deployment. Rows are emitted as the driver decodes them, so a slow
+ * subscriber slows the query down instead of buffering the result.
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveProductRepository {
+
+	private static final String COLUMNS = "select id, name, description, initial_quantity, remaining_quantity, "
+			+ "category, price_per_unit, version from products ";
+	
+	private final DatabaseClient databaseClient;
+	
+	public ReactiveProductRepository(ConnectionFactory connectionFactory) {
+		this.databaseClient = DatabaseClient.create(connectionFactory);
+	}
+	
+	public Mono<Product> findById(Long id) {
+		return databaseClient.sql(COLUMNS + "where id = :id")
+							 .bind("id", id)
+							 .map((row, metadata) -> toProduct(row))
+							 .one();
+	}
+	
+	public Flux<Product> findByCategory(String category) {
+		return databaseClient.sql(COLUMNS + "where category = :category order by id")
+							 .bind("category", category)
+							 .map((row, metadata) -> toProduct(row))
+							 .all();
+	}
+	
+	public Flux<Product> findInStock() {
+		return databaseClient.sql(COLUMNS + "where remaining_quantity > 0 order by id")
+							 .map((row, metadata) -> toProduct(row))
+							 .all();
+	}
+	
+	public Flux<Product> findAll() {
+		return databaseClient.sql(COLUMNS + "order by id")
+							 .map((row, metadata) -> toProduct(row))
+							 .all();
+	}
+	
+	/**
+	 * Keyset listing like ProductRepository.findProductsAfter: at most limit
+	 * products after the cursor in id order.
+	 */
+	public Flux<Product> findAfter(Long after, int limit, String category) {
+		StringBuilder sql = new StringBuilder(COLUMNS).append("where id > :after ");
+		if(category != null)
+			sql.append("and category = :category ");
+		sql.append("order by id limit :limit");
+		
+		DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+															   .bind("after", after == null ? 0L : after)
+															   .bind("limit", limit);
+		if(category != null)
+			spec = spec.bind("category", category);
+		return spec.map((row, metadata) -> toProduct(row)).all();
+	}
+	
+	private static Product toProduct(Row row) {
+		return Product.builder()
+					  .id(row.get("id", Long.class))
+					  .name(row.get("name", String.class))
+					  .description(row.get("description", String.class))
+					  .initialQuantity(row.get("initial_quantity", Integer.class))
+					  .remainingQuantity(row.get("remaining_quantity", Integer.class))
+					  .category(row.get("category", String.class))
+					  .pricePerUnit(row.get("price_per_unit", BigDecimal.class))
+					  .version(row.get("version", Long.class))
+					  .build();
+	}
+}
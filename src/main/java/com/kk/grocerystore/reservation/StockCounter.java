@@ -0,0 +1,80 @@
+package com.kk.grocerystore.reservation;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock of one product on this instance. available is the idle
+ * part of the units leased from the Products row, outstanding what has been
+ * reserved here and not released yet, and stored the quantity the row was
+ * last seen with (the units no instance holds).
+ * Each product has its own monitor, so hot products do not contend with each other.
+ */
+class StockCounter {
+
+	// held while this counter takes a lease, which is a database write; the monitor only guards the fields
+	final ReentrantLock leaseLock = new ReentrantLock();
+	
+	private long available;
+	
+	private long outstanding;
+	
+	private long stored;
+	
+	synchronized boolean reserve(int quantity) {
+		if(available < quantity)
+			return false;
+		available -= quantity;
+		outstanding += quantity;
+		return true;
+	}
+	
+	synchronized boolean release(int quantity) {
+		if(outstanding < quantity)
+			return false;
+		outstanding -= quantity;
+		available += quantity;
+		return true;
+	}
+	
+	/**
+	 * Adds units leased from a row now holding storedQuantity and reserves
+	 * quantity out of them in the same step, so a concurrent flush cannot
+	 * hand the lease back before the reservation that asked for it.
+	 */
+	synchronized boolean leased(long units, long storedQuantity, int quantity) {
+		available += units;
+		stored = storedQuantity;
+		return reserve(quantity);
+	}
+	
+	synchronized long available() {
+		return available;
+	}
+	
+	/**
+	 * Takes all idle units out to be returned to the Products row.
+	 */
+	synchronized long drain() {
+		long units = available;
+		available = 0;
+		return units;
+	}
+	
+	/**
+	 * Takes back drained units the row could not be given.
+	 */
+	synchronized void refund(long units) {
+		available += units;
+	}
+	
+	synchronized void stored(long storedQuantity) {
+		stored = storedQuantity;
+	}
+	
+	/**
+	 * Stock as this instance sees it: its idle units plus the unleased ones.
+	 */
+	synchronized long remaining() {
+		return available + stored;
+	}
+}
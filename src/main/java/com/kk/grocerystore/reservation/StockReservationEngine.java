@@ -0,0 +1,213 @@
+package com.kk.grocerystore.reservation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kk.grocerystore.datasource.PrimaryRouting;
+import com.kk.grocerystore.dto.StockUpdateResult;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Answers reserve/release calls from per-product counters held in memory.
+ * <p>
+ * Products.remaining_quantity stays the authoritative stock: it counts the
+ * units no instance holds. A counter leases units from the row in blocks of
+ * lease-size (a locking read and an entity update, the same way every other
+ * stock write goes) and serves reservations out of them without touching
+ * the database; releases return units to the lease. A periodic flush hands
+ * the idle units back to the rows, so between flushes the stored stock
+ * trails by what the instances hold.
+ * <p>
+ * Units leave the row before they are reserved, so no instance, decrement
+ * or absolute stock write can take them twice. A crash loses the idle units
+ * of the dead instance (at most one lease plus the releases since the last
+ * flush per product): stock is understated until it is corrected, never
+ * oversold. Releases are bounded by the reservations taken on the same
+ * instance that are still outstanding.
+ */
+@Slf4j
+@Component
+public class StockReservationEngine {
+
+	private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+	
+	@Value("${grocerystore.reservation.lease-size:100}")
+	private int leaseSize;
+	
+	@Autowired
+	private ProductRepository productRepository;
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+	
+	/**
+	 * Takes quantity units from the counter, leasing more from the Products
+	 * row first when the idle ones do not cover it.
+	 */
+	public Optional<StockUpdateResult> reserve(Long productId, int quantity) {
+		StockCounter counter = counters.computeIfAbsent(productId, id -> new StockCounter());
+		if(counter.reserve(quantity))
+			return applied(productId, counter);
+		// one lease per product at a time; a ReentrantLock rather than the counter's monitor, the lease is database I/O
+		counter.leaseLock.lock();
+		try {
+			if(counter.reserve(quantity))
+				return applied(productId, counter);
+			Optional<Boolean> leased = lease(productId, counter, quantity);
+			if(!leased.isPresent()) {
+				counters.remove(productId, counter);
+				return Optional.empty();
+			}
+			return Optional.of(new StockUpdateResult(productId, (int) counter.remaining(), leased.get()));
+		} finally {
+			counter.leaseLock.unlock();
+		}
+	}
+	
+	/**
+	 * Gives back units of reservations taken on this instance. Releasing
+	 * more than is outstanding is refused, so stock cannot be made up.
+	 */
+	public Optional<StockUpdateResult> release(Long productId, int quantity) {
+		StockCounter counter = counters.get(productId);
+		if(counter == null)
+			return PrimaryRouting.call(() -> productRepository.findRemainingQuantityById(productId))
+								 .map(stored -> new StockUpdateResult(productId, stored, false));
+		boolean released = counter.release(quantity);
+		return Optional.of(new StockUpdateResult(productId, (int) counter.remaining(), released));
+	}
+	
+	/**
+	 * Hands the idle leased units back to the Products rows. If that fails
+	 * the counters keep them and the next flush tries again.
+	 */
+	@Scheduled(fixedDelayString = "${grocerystore.reservation.flush-interval-ms:500}")
+	public void flush() {
+		Map<Long, Long> drained = new LinkedHashMap<>();
+		counters.forEach((productId, counter) -> {
+			long units = counter.drain();
+			if(units > 0)
+				drained.put(productId, units);
+		});
+		if(drained.isEmpty())
+			return;
+		Map<Long, Long> stored;
+		try {
+			stored = new TransactionTemplate(transactionManager).execute(status -> returnUnits(drained));
+		} catch (RuntimeException e) {
+			log.warn("Stock flush failed, leased units are returned on the next run", e);
+			drained.forEach((productId, units) -> {
+				StockCounter counter = counters.get(productId);
+				if(counter != null)
+					counter.refund(units);
+			});
+			return;
+		}
+		stored.forEach((productId, quantity) -> {
+			StockCounter counter = counters.get(productId);
+			if(counter != null)
+				counter.stored(quantity);
+		});
+	}
+	
+	/**
+	 * Leases the units quantity is short of, at least lease-size when the row
+	 * has them, and reserves quantity out of them. Empty if the product does
+	 * not exist, false if its stock does not cover quantity.
+	 */
+	private Optional<Boolean> lease(Long productId, StockCounter counter, int quantity) {
+		long[] lease = new TransactionTemplate(transactionManager).execute(status ->
+				productRepository.findByIdForUpdate(productId).map(product -> {
+					long stored = quantityOf(product.getRemainingQuantity());
+					long needed = quantity - counter.available();
+					// nothing is taken for a reservation that fails anyway
+					long units = needed > stored ? 0 : Math.min(stored, Math.max(needed, leaseSize));
+					if(units > 0) {
+						product.setRemainingQuantity((int) (stored - units));
+						productRepository.flush();
+						eventPublisher.publishEvent(ProductChangedEvent.of(this, ChangeType.STOCK_CHANGED, product));
+					}
+					return new long[] {units, stored - units};
+				}).orElse(null));
+		if(lease == null)
+			return Optional.empty();
+		// added only once the lease is committed, a rolled back lease must not be handed out
+		return Optional.of(counter.leased(lease[0], lease[1], quantity));
+	}
+	
+	private Map<Long, Long> returnUnits(Map<Long, Long> drained) {
+		// entity updates instead of UPDATE statements: a statement would evict the whole
+		// products cache region on every flush, an entity update replaces only its own entry
+		List<Product> products = productRepository.findAllByIdForUpdate(drained.keySet());
+		Map<Long, Long> stored = new LinkedHashMap<>();
+		for(Product product : products) {
+			long remaining = quantityOf(product.getRemainingQuantity()) + drained.get(product.getId());
+			product.setRemainingQuantity((int) remaining);
+			stored.put(product.getId(), remaining);
+		}
+		// units of products deleted in the meantime are dropped with them
+		if(!products.isEmpty()) {
+			productRepository.flush();
+			eventPublisher.publishEvent(new ProductChangedEvent(this, ChangeType.STOCK_CHANGED,
+					new ArrayList<>(stored.keySet()), products));
+		}
+		return stored;
+	}
+	
+	/**
+	 * Other writes only change the units no instance holds, the leases stay
+	 * valid; the counters just follow the stored quantity they report and
+	 * are dropped with deleted products.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if(event.getSource() == this || event.getType() == ChangeType.CREATED)
+			return;
+		
+		if(event.getType() == ChangeType.DELETED) {
+			event.getProductIds().forEach(counters::remove);
+			return;
+		}
+		for(Product product : event.getProducts()) {
+			StockCounter counter = counters.get(product.getId());
+			if(counter != null)
+				counter.stored(quantityOf(product.getRemainingQuantity()));
+		}
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		flush();
+	}
+	
+	private static Optional<StockUpdateResult> applied(Long productId, StockCounter counter) {
+		return Optional.of(new StockUpdateResult(productId, (int) counter.remaining(), true));
+	}
+	
+	private static long quantityOf(Integer quantity) {
+		return quantity == null ? 0 : quantity;
+	}
+}
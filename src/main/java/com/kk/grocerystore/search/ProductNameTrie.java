@@ -0,0 +1,412 @@
+package com.kk.grocerystore.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.index.CatalogView;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+
+/**
+ * Radix trie of lower-cased product names for prefix autocomplete, weighted
+ * by remaining stock. Every node keeps the highest weight below it, so a
+ * top-K lookup walks best-first and only expands the branches that can
+ * still contribute, independent of how many names share the prefix.
+ * <p>
+ * Edges carry whole label strings and children sit in arrays sorted by
+ * their first character, which keeps the footprint to roughly one node per
+ * name. Lookups share a read lock, writes take the write lock.
+ */
+@Component
+public class ProductNameTrie implements CatalogView {
+
+	private static final char[] NO_KEYS = new char[0];
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private static final Entry[] NO_ENTRIES = new Entry[0];
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// serializes writers with their database loads, see ProductSearchIndex
+	private final ReentrantLock writeOrder = new ReentrantLock();
+
+	// everything below is guarded by lock
+	private Node root = new Node("");
+	private Map<Long, Entry> entryOf = new HashMap<>();
+	private boolean loaded;
+
+	/**
+	 * Names starting with the prefix, ignoring case, best stocked first; empty
+	 * while the trie is not loaded yet.
+	 */
+	public Optional<List<String>> complete(String prefix, int limit) {
+		String key = prefix.toLowerCase(Locale.ROOT);
+		lock.readLock().lock();
+		try {
+			if(!loaded)
+				return Optional.empty();
+			Node start = find(key);
+			if(start == null || limit < 1)
+				return Optional.of(List.of());
+			return Optional.of(top(start, limit));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Builds a whole new trie next to the live one, so lookups are only
+	 * blocked for the swap.
+	 */
+	@Override
+	public Builder newBuilder() {
+		Node builtRoot = new Node("");
+		Map<Long, Entry> builtEntryOf = new HashMap<>();
+		return new Builder() {
+
+			@Override
+			public void add(Product product) {
+				Entry entry = new Entry(product.getId(), product.getName(), weightOf(product));
+				builtEntryOf.put(entry.productId, entry);
+				insert(builtRoot, product.getName().toLowerCase(Locale.ROOT), entry);
+			}
+
+			@Override
+			public void publish() {
+				lock.writeLock().lock();
+				try {
+					root = builtRoot;
+					entryOf = builtEntryOf;
+					loaded = true;
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		};
+	}
+
+	@Override
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		writeOrder.lock();
+		try {
+			lock.readLock().lock();
+			try {
+				// changes made before the first load are replayed by CatalogLoader
+				if(!loaded)
+					return;
+			} finally {
+				lock.readLock().unlock();
+			}
+			apply(event.getProductIds(), event.currentProducts(ids -> productRepository.findAllById(ids)));
+		} finally {
+			writeOrder.unlock();
+		}
+	}
+
+	private void apply(Collection<Long> changedIds, Collection<Product> currentProducts) {
+		lock.writeLock().lock();
+		try {
+			Set<Long> present = new HashSet<>();
+			for(Product product : currentProducts) {
+				present.add(product.getId());
+				putLocked(product);
+			}
+			for(Long id : changedIds)
+				if(!present.contains(id))
+					removeLocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void putLocked(Product product) {
+		Entry existing = entryOf.get(product.getId());
+		long weight = weightOf(product);
+		if(existing != null && existing.name.equals(product.getName())) {
+			if(existing.weight != weight) {
+				existing.weight = weight;
+				recomputePath(existing.name.toLowerCase(Locale.ROOT));
+			}
+			return;
+		}
+		if(existing != null)
+			removeLocked(product.getId());
+
+		Entry entry = new Entry(product.getId(), product.getName(), weight);
+		entryOf.put(entry.productId, entry);
+		insert(root, product.getName().toLowerCase(Locale.ROOT), entry);
+	}
+
+	private void removeLocked(Long productId) {
+		Entry entry = entryOf.remove(productId);
+		if(entry != null)
+			remove(root, entry.name.toLowerCase(Locale.ROOT), entry);
+	}
+
+	private static void insert(Node node, String rest, Entry entry) {
+		if(rest.isEmpty()) {
+			node.addEntry(entry);
+			node.maxWeight = Math.max(node.maxWeight, entry.weight);
+			return;
+		}
+		node.maxWeight = Math.max(node.maxWeight, entry.weight);
+		int index = node.childIndex(rest.charAt(0));
+		if(index < 0) {
+			Node leaf = new Node(rest);
+			leaf.addEntry(entry);
+			leaf.maxWeight = entry.weight;
+			node.addChild(leaf);
+			return;
+		}
+		Node child = node.children[index];
+		int common = commonPrefix(child.label, rest);
+		if(common < child.label.length()) {
+			// split the edge: child keeps the tail of its label under a new parent
+			Node split = new Node(child.label.substring(0, common));
+			child.label = child.label.substring(common);
+			split.addChild(child);
+			split.maxWeight = child.maxWeight;
+			node.children[index] = split;
+			child = split;
+		}
+		insert(child, rest.substring(common), entry);
+	}
+
+	/**
+	 * Removes the entry below node and returns false once node itself has
+	 * become empty and should be dropped by its parent.
+	 */
+	private static boolean remove(Node node, String rest, Entry entry) {
+		if(rest.isEmpty()) {
+			node.removeEntry(entry);
+		} else {
+			int index = node.childIndex(rest.charAt(0));
+			if(index < 0)
+				return true;
+			Node child = node.children[index];
+			if(!rest.startsWith(child.label))
+				return true;
+			if(!remove(child, rest.substring(child.label.length()), entry))
+				node.removeChild(index);
+			else if(child.entries.length == 0 && child.children.length == 1)
+				node.children[index] = child.mergeWithOnlyChild();
+		}
+		node.recomputeMaxWeight();
+		return node.entries.length > 0 || node.children.length > 0 || node.label.isEmpty();
+	}
+
+	private void recomputePath(String key) {
+		List<Node> path = new ArrayList<>();
+		Node node = root;
+		String rest = key;
+		path.add(node);
+		while(!rest.isEmpty()) {
+			int index = node.childIndex(rest.charAt(0));
+			if(index < 0)
+				break;
+			node = node.children[index];
+			rest = rest.substring(Math.min(node.label.length(), rest.length()));
+			path.add(node);
+		}
+		for(int i = path.size() - 1; i >= 0; i--)
+			path.get(i).recomputeMaxWeight();
+	}
+
+	/**
+	 * Node whose subtree holds exactly the keys starting with prefix; when
+	 * the prefix ends inside an edge that edge's node is returned.
+	 */
+	private Node find(String prefix) {
+		Node node = root;
+		String rest = prefix;
+		while(!rest.isEmpty()) {
+			int index = node.childIndex(rest.charAt(0));
+			if(index < 0)
+				return null;
+			node = node.children[index];
+			int common = commonPrefix(node.label, rest);
+			if(common == rest.length())
+				return node;
+			if(common < node.label.length())
+				return null;
+			rest = rest.substring(common);
+		}
+		return node;
+	}
+
+	private static List<String> top(Node start, int limit) {
+		List<String> names = new ArrayList<>(limit);
+		PriorityQueue<Candidate> queue = new PriorityQueue<>();
+		queue.add(new Candidate(start.maxWeight, start, null));
+		while(!queue.isEmpty() && names.size() < limit) {
+			Candidate candidate = queue.poll();
+			if(candidate.entry != null) {
+				names.add(candidate.entry.name);
+				continue;
+			}
+			Node node = candidate.node;
+			for(Entry entry : node.entries)
+				queue.add(new Candidate(entry.weight, null, entry));
+			for(Node child : node.children)
+				queue.add(new Candidate(child.maxWeight, child, null));
+		}
+		return names;
+	}
+
+	private static int commonPrefix(String a, String b) {
+		int length = Math.min(a.length(), b.length());
+		int i = 0;
+		while(i < length && a.charAt(i) == b.charAt(i))
+			i++;
+		return i;
+	}
+
+	private static long weightOf(Product product) {
+		return product.getRemainingQuantity() == null ? 0 : Math.max(0, product.getRemainingQuantity());
+	}
+
+	private static final class Node {
+
+		private String label;
+
+		private char[] keys = NO_KEYS;
+
+		private Node[] children = NO_CHILDREN;
+
+		private Entry[] entries = NO_ENTRIES;
+
+		private long maxWeight;
+
+		private Node(String label) {
+			this.label = label;
+		}
+
+		private int childIndex(char first) {
+			int index = Arrays.binarySearch(keys, first);
+			return index < 0 ? -1 : index;
+		}
+
+		private void addChild(Node child) {
+			char first = child.label.charAt(0);
+			int position = -Arrays.binarySearch(keys, first) - 1;
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, position);
+			System.arraycopy(children, 0, newChildren, 0, position);
+			newKeys[position] = first;
+			newChildren[position] = child;
+			System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+			System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+			keys = newKeys;
+			children = newChildren;
+		}
+
+		private void removeChild(int index) {
+			char[] newKeys = new char[keys.length - 1];
+			Node[] newChildren = new Node[children.length - 1];
+			System.arraycopy(keys, 0, newKeys, 0, index);
+			System.arraycopy(children, 0, newChildren, 0, index);
+			System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+			System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+			keys = newKeys.length == 0 ? NO_KEYS : newKeys;
+			children = newChildren.length == 0 ? NO_CHILDREN : newChildren;
+		}
+
+		private Node mergeWithOnlyChild() {
+			Node child = children[0];
+			child.label = label + child.label;
+			return child;
+		}
+
+		private void addEntry(Entry entry) {
+			entries = Arrays.copyOf(entries, entries.length + 1);
+			entries[entries.length - 1] = entry;
+		}
+
+		private void removeEntry(Entry entry) {
+			for(int i = 0; i < entries.length; i++) {
+				if(entries[i] != entry)
+					continue;
+				Entry[] newEntries = new Entry[entries.length - 1];
+				System.arraycopy(entries, 0, newEntries, 0, i);
+				System.arraycopy(entries, i + 1, newEntries, i, entries.length - i - 1);
+				entries = newEntries.length == 0 ? NO_ENTRIES : newEntries;
+				return;
+			}
+		}
+
+		private void recomputeMaxWeight() {
+			long max = 0;
+			for(Entry entry : entries)
+				max = Math.max(max, entry.weight);
+			for(Node child : children)
+				max = Math.max(max, child.maxWeight);
+			maxWeight = max;
+		}
+	}
+
+	private static final class Entry {
+
+		private final long productId;
+
+		private final String name;
+
+		private long weight;
+
+		private Entry(long productId, String name, long weight) {
+			this.productId = productId;
+			this.name = name;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * Queue element: either a subtree bounded by its max weight or a single
+	 * name. Ties go to names before subtrees, then alphabetically.
+	 */
+	private static final class Candidate implements Comparable<Candidate> {
+
+		private final long weight;
+
+		private final Node node;
+
+		private final Entry entry;
+
+		private Candidate(long weight, Node node, Entry entry) {
+			this.weight = weight;
+			this.node = node;
+			this.entry = entry;
+		}
+
+		@Override
+		public int compareTo(Candidate other) {
+			int byWeight = Long.compare(other.weight, weight);
+			if(byWeight != 0)
+				return byWeight;
+			if((entry == null) != (other.entry == null))
+				return entry != null ? -1 : 1;
+			return entry == null ? 0 : entry.name.compareTo(other.entry.name);
+		}
+	}
+}
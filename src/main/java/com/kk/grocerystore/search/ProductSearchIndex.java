@@ -0,0 +1,281 @@
+package com.kk.grocerystore.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.index.CatalogView;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+
+/**
+ * In-memory inverted index over product name and description with BM25
+ * ranking. Name terms count NAME_WEIGHT times so a keyword in the name
+ * outranks the same keyword in a description.
+ * <p>
+ * Documents live in append-only slots; a change tombstones the old slot and
+ * appends a new one, and the whole index is compacted once more than half
+ * of the slots are dead. Searches share a read lock, writes take the write
+ * lock. Returned products are shared and must be treated as read-only.
+ */
+@Component
+public class ProductSearchIndex implements CatalogView {
+
+	static final int NAME_WEIGHT = 3;
+
+	private static final double K1 = 1.2;
+
+	private static final double B = 0.75;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// serializes writers, including their database loads, so changes apply in
+	// commit order while searches are only blocked for the in-memory update
+	private final ReentrantLock writeOrder = new ReentrantLock();
+
+	// everything below is guarded by lock
+	private final List<Document> slots = new ArrayList<>();
+	private final Map<Long, Integer> slotOf = new HashMap<>();
+	private final Map<String, Postings> postings = new HashMap<>();
+	private long totalLength;
+	private boolean loaded;
+
+	/**
+	 * Best matching products first, at most limit of them, or empty while
+	 * the index is not loaded yet.
+	 */
+	public Optional<List<Product>> search(String query, String category, int limit) {
+		Set<String> terms = new LinkedHashSet<>(tokenize(query));
+		lock.readLock().lock();
+		try {
+			if(!loaded)
+				return Optional.empty();
+			if(terms.isEmpty() || slotOf.isEmpty() || limit < 1)
+				return Optional.of(List.of());
+
+			int documentCount = slotOf.size();
+			double averageLength = (double) totalLength / documentCount;
+			Map<Integer, Double> scores = new HashMap<>();
+			for(String term : terms) {
+				Postings list = postings.get(term);
+				if(list == null)
+					continue;
+				int frequency = list.size - list.dead;
+				double idf = Math.log(1 + (documentCount - frequency + 0.5) / (frequency + 0.5));
+				for(int i = 0; i < list.size; i++) {
+					Document document = slots.get(list.slots[i]);
+					if(document == null || (category != null && !category.equals(document.product.getCategory())))
+						continue;
+					int tf = list.frequencies[i];
+					double norm = K1 * (1 - B + B * document.length / averageLength);
+					scores.merge(list.slots[i], idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+				}
+			}
+			return Optional.of(top(scores, limit));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Builder newBuilder() {
+		List<Product> products = new ArrayList<>();
+		return new Builder() {
+
+			@Override
+			public void add(Product product) {
+				products.add(copy(product));
+			}
+
+			@Override
+			public void publish() {
+				lock.writeLock().lock();
+				try {
+					slots.clear();
+					slotOf.clear();
+					postings.clear();
+					totalLength = 0;
+					products.forEach(ProductSearchIndex.this::addLocked);
+					loaded = true;
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		};
+	}
+
+	@Override
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		writeOrder.lock();
+		try {
+			lock.readLock().lock();
+			try {
+				// changes made before the first load are replayed by CatalogLoader
+				if(!loaded)
+					return;
+			} finally {
+				lock.readLock().unlock();
+			}
+			apply(event.getProductIds(), event.currentProducts(ids -> productRepository.findAllById(ids)));
+		} finally {
+			writeOrder.unlock();
+		}
+	}
+
+	private void apply(Collection<Long> changedIds, Collection<Product> currentProducts) {
+		Map<Long, Product> current = new HashMap<>();
+		currentProducts.forEach(product -> current.put(product.getId(), product));
+		lock.writeLock().lock();
+		try {
+			for(Long id : changedIds) {
+				Product product = current.get(id);
+				Integer slot = slotOf.get(id);
+				if(product != null && slot != null && sameText(slots.get(slot).product, product)) {
+					// stock or price change: nothing to re-tokenize
+					slots.get(slot).product = copy(product);
+					continue;
+				}
+				if(slot != null)
+					removeLocked(slot);
+				if(product != null)
+					addLocked(copy(product));
+			}
+			if(slots.size() > 64 && slotOf.size() < slots.size() / 2)
+				compactLocked();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Indexes the product as it is; callers pass a copy they no longer touch.
+	 */
+	private void addLocked(Product product) {
+		Map<String, Integer> frequencies = new HashMap<>();
+		tokenize(product.getName()).forEach(term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+		tokenize(product.getDescription()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+
+		int slot = slots.size();
+		int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+		slots.add(new Document(product, length, frequencies.keySet().toArray(new String[0])));
+		slotOf.put(product.getId(), slot);
+		totalLength += length;
+		frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new Postings()).add(slot, frequency));
+	}
+
+	private void removeLocked(int slot) {
+		Document document = slots.set(slot, null);
+		slotOf.remove(document.product.getId());
+		totalLength -= document.length;
+		for(String term : document.terms) {
+			Postings list = postings.get(term);
+			list.dead++;
+			if(list.dead == list.size)
+				postings.remove(term);
+		}
+	}
+
+	private void compactLocked() {
+		List<Product> live = slots.stream()
+								  .filter(Objects::nonNull)
+								  .map(document -> document.product)
+								  .collect(Collectors.toList());
+		slots.clear();
+		slotOf.clear();
+		postings.clear();
+		totalLength = 0;
+		live.forEach(this::addLocked);
+	}
+
+	private List<Product> top(Map<Integer, Double> scores, int limit) {
+		PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+		for(Map.Entry<Integer, Double> entry : scores.entrySet()) {
+			best.offer(entry);
+			if(best.size() > limit)
+				best.poll();
+		}
+		Product[] ranked = new Product[best.size()];
+		for(int i = ranked.length - 1; i >= 0; i--)
+			ranked[i] = slots.get(best.poll().getKey()).product;
+		return Arrays.asList(ranked);
+	}
+
+	static List<String> tokenize(String text) {
+		if(text == null || text.isBlank())
+			return List.of();
+		return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+					 .filter(token -> !token.isEmpty())
+					 .collect(Collectors.toList());
+	}
+
+	private static boolean sameText(Product indexed, Product product) {
+		return Objects.equals(indexed.getName(), product.getName())
+				&& Objects.equals(indexed.getDescription(), product.getDescription())
+				&& Objects.equals(indexed.getCategory(), product.getCategory());
+	}
+
+	private static Product copy(Product product) {
+		return product.toBuilder().build();
+	}
+
+	private static final class Document {
+
+		private Product product;
+
+		private final int length;
+
+		private final String[] terms;
+
+		private Document(Product product, int length, String[] terms) {
+			this.product = product;
+			this.length = length;
+			this.terms = terms;
+		}
+	}
+
+	/**
+	 * Slots in ascending order with their weighted term frequency; entries
+	 * of removed documents stay until the next compaction.
+	 */
+	private static final class Postings {
+
+		private int[] slots = new int[4];
+
+		private int[] frequencies = new int[4];
+
+		private int size;
+
+		private int dead;
+
+		private void add(int slot, int frequency) {
+			if(size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+			slots[size] = slot;
+			frequencies[size] = frequency;
+			size++;
+		}
+	}
+}
@@ -1,19 +1,67 @@
 package com.kk.grocerystore.service;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.dto.PatchResult;
+import com.kk.grocerystore.dto.ProductBulkDelete;
+import com.kk.grocerystore.dto.ProductBulkUpdate;
+import com.kk.grocerystore.dto.ProductListing;
+import com.kk.grocerystore.dto.ProductPage;
+import com.kk.grocerystore.dto.ProductPatch;
+import com.kk.grocerystore.dto.ProductSummaryPage;
+import com.kk.grocerystore.dto.StockUpdateResult;
 import com.kk.grocerystore.model.Product;
 
 public interface ProductService {
 
 	public Product saveProduct(Product product);
 	
+	public List<Product> saveProducts(List<Product> products);
+	
 	public List<Product> listProduct();
 	
+	public ProductPage listProductPage(Long after, int limit, String category);
+	
+	public ProductSummaryPage listProductSummaryPage(Long after, int limit, String category);
+	
+	/**
+	 * Catalog version of the database the paged listings are read from; a
+	 * page carries the version it was read with.
+	 */
+	public long getCatalogVersion();
+	
 	public Optional<Product> getProductById(Long id);
 	
+	public ProductListing findProductsByCategory(String category);
+	
+	public ProductListing findRemainingProducts();
+	
+	public List<Product> searchProducts(String query, String category, int limit);
+	
+	public List<String> autocompleteNames(String prefix, int limit);
+	
+	public List<CategoryAggregate> getCategoryAggregates();
+	
+	public List<Product> findProductsByPrice(String category, BigDecimal min, BigDecimal max,
+											 boolean descending, int limit);
+	
+	public void exportProducts(Consumer<Product> consumer);
+	
 	public Product updateProduct(Product product);
 	
+	public PatchResult patchProduct(Long id, ProductPatch patch);
+	
+	public int bulkUpdateProducts(ProductBulkUpdate update);
+	
 	public void deleteProductById(Long id);
+	
+	public int bulkDeleteProducts(ProductBulkDelete delete);
+	
+	public Optional<StockUpdateResult> decreaseStock(Long id, int quantity);
+	
+	public Optional<StockUpdateResult> increaseStock(Long id, int quantity);
 }
@@ -1,43 +1,430 @@
 package com.kk.grocerystore.service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.kk.grocerystore.datasource.PrimaryRouting;
+import com.kk.grocerystore.cache.CatalogVersion;
+import com.kk.grocerystore.cache.ProductCache;
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.dto.PatchResult;
+import com.kk.grocerystore.dto.ProductBulkDelete;
+import com.kk.grocerystore.dto.ProductBulkUpdate;
+import com.kk.grocerystore.dto.ProductListing;
+import com.kk.grocerystore.dto.ProductPage;
+import com.kk.grocerystore.dto.ProductPatch;
+import com.kk.grocerystore.dto.ProductSummary;
+import com.kk.grocerystore.dto.ProductSummaryPage;
+import com.kk.grocerystore.dto.StockUpdateResult;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
 import com.kk.grocerystore.exception.DuplicateProductException;
+import com.kk.grocerystore.index.CategoryAggregates;
+import com.kk.grocerystore.index.CategoryIndex;
+import com.kk.grocerystore.index.PriceIndex;
+import com.kk.grocerystore.index.ProductNameIndex;
 import com.kk.grocerystore.model.Product;
 import com.kk.grocerystore.repository.ProductRepository;
+import com.kk.grocerystore.search.ProductNameTrie;
+import com.kk.grocerystore.search.ProductSearchIndex;
 
 @Service
 public class ProductServiceImpl implements ProductService{
 
+	private static final int EXPORT_CLEAR_INTERVAL = 1000;
+	
+	private static final int NAME_LOOKUP_CHUNK = 1000;
+	
+	// ids per IN list of a bulk statement
+	private static final int BULK_CHUNK = 1000;
+	
+	// bounds of the default decimal(19,2) price column, used for open-ended ranges
+	private static final BigDecimal MAX_PRICE = new BigDecimal("99999999999999999.99");
+	
 	@Autowired
 	private ProductRepository productRepository;
-
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+	
+	@Autowired
+	private ProductNameIndex productNameIndex;
+	
+	@Autowired
+	private ProductCache productCache;
+	
+	@Autowired
+	private CategoryIndex categoryIndex;
+	
+	@Autowired
+	private CatalogVersion catalogVersion;
+	
+	@Autowired
+	private ProductSearchIndex productSearchIndex;
+	
+	@Autowired
+	private ProductNameTrie productNameTrie;
+	
+	@Autowired
+	private PriceIndex priceIndex;
+	
+	@Autowired
+	private CategoryAggregates categoryAggregates;
+	
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int batchSize;
+	
 	@Override
+	@Transactional
 	public Product saveProduct(Product product) {
-		Optional<Product> productOpt = productRepository.findByName(product.getName());
-		if(productOpt.isPresent())
-			throw new DuplicateProductException("Product found with name: " + product.getName());
-		return productRepository.save(product);		
+		// only names the index might have seen cost a lookup; the unique index catches the rest
+		if(productNameIndex.mightContain(product.getName())) {
+			Optional<Product> productOpt = productRepository.findByName(product.getName());
+			if(productOpt.isPresent())
+				throw new DuplicateProductException("Product found with name: " + product.getName());
+		}
+		Product savedProduct = saveUnique(product);
+		eventPublisher.publishEvent(ProductChangedEvent.of(this, ChangeType.CREATED, savedProduct));
+		return savedProduct;
 	}
 	
 	@Override
+	@Transactional
+	public List<Product> saveProducts(List<Product> products) {
+		Set<String> names = new HashSet<>();
+		for(Product product : products) {
+			if(!names.add(product.getName()))
+				throw new DuplicateProductException("Product repeated in request with name: " + product.getName());
+		}
+		
+		List<String> nameList = new ArrayList<>(names);
+		List<String> existingNames = new ArrayList<>();
+		for(int from = 0; from < nameList.size(); from += NAME_LOOKUP_CHUNK)
+			existingNames.addAll(productRepository.findExistingNames(
+					nameList.subList(from, Math.min(from + NAME_LOOKUP_CHUNK, nameList.size()))));
+		if(!existingNames.isEmpty())
+			throw new DuplicateProductException("Products found with names: " + existingNames);
+		
+		List<Product> savedProducts = new ArrayList<>(products.size());
+		try {
+			for(int i = 0; i < products.size(); i++) {
+				savedProducts.add(productRepository.save(products.get(i)));
+				// flush one JDBC batch at a time and drop it from the persistence context
+				if((i + 1) % batchSize == 0) {
+					productRepository.flush();
+					entityManager.clear();
+				}
+			}
+			productRepository.flush();
+		} catch (DataIntegrityViolationException e) {
+			if(isNameConstraintViolation(e))
+				throw new DuplicateProductException("Product created concurrently with one of the names: " + names);
+			throw e;
+		}
+		names.forEach(productNameIndex::add);
+		List<Long> ids = new ArrayList<>(savedProducts.size());
+		savedProducts.forEach(savedProduct -> ids.add(savedProduct.getId()));
+		eventPublisher.publishEvent(new ProductChangedEvent(this, ChangeType.CREATED, ids, savedProducts));
+		return savedProducts;
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
 	public List<Product> listProduct(){
 		return productRepository.findAll();
 	}
 	
+	@Override
+	@Transactional(readOnly = true)
+	public ProductPage listProductPage(Long after, int limit, String category) {
+		long cursor = after == null ? 0L : after;
+		// read before the rows, so the page is never older than the version it is tagged with
+		long version = catalogVersion.current();
+		// one extra row tells us whether a next page exists without a count query
+		Pageable pageable = PageRequest.of(0, limit + 1);
+		List<Product> products = category == null
+				? productRepository.findProductsAfter(cursor, pageable)
+				: productRepository.findProductsByCategoryAfter(category, cursor, pageable);
+		if(products.size() <= limit)
+			return new ProductPage(products, null, version);
+		List<Product> page = products.subList(0, limit);
+		return new ProductPage(page, page.get(limit - 1).getId(), version);
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public ProductSummaryPage listProductSummaryPage(Long after, int limit, String category) {
+		long cursor = after == null ? 0L : after;
+		long version = catalogVersion.current();
+		Pageable pageable = PageRequest.of(0, limit + 1);
+		List<ProductSummary> summaries = category == null
+				? productRepository.findSummariesAfter(cursor, pageable)
+				: productRepository.findSummariesByCategoryAfter(category, cursor, pageable);
+		if(summaries.size() <= limit)
+			return new ProductSummaryPage(summaries, null, version);
+		List<ProductSummary> page = summaries.subList(0, limit);
+		return new ProductSummaryPage(page, page.get(limit - 1).getId(), version);
+	}
+	
 	public Optional<Product> getProductById(Long id){
-		return productRepository.findById(id);
+		return productCache.get(id, key -> PrimaryRouting.call(() -> productRepository.findById(key)));
+	}
+	
+	@Override
+	public ProductListing findProductsByCategory(String category) {
+		return categoryIndex.findByCategory(category)
+							.orElseGet(() -> new ProductListing(productRepository.findProductsByCategory(category), null));
 	}
 	
+	@Override
+	public ProductListing findRemainingProducts() {
+		return categoryIndex.findInStock()
+							.orElseGet(() -> new ProductListing(productRepository.findRemaningProducts(), null));
+	}
+	
+	@Override
+	public List<Product> searchProducts(String query, String category, int limit) {
+		return productSearchIndex.search(query, category, limit)
+								 .orElseGet(() -> productRepository.searchByText(query.trim(), category,
+										 PageRequest.of(0, limit)));
+	}
+	
+	@Override
+	public List<String> autocompleteNames(String prefix, int limit) {
+		return productNameTrie.complete(prefix, limit)
+							  .orElseGet(() -> productRepository.findNamesByPrefix(prefix, PageRequest.of(0, limit)));
+	}
+	
+	@Override
+	public List<Product> findProductsByPrice(String category, BigDecimal min, BigDecimal max,
+											 boolean descending, int limit) {
+		return priceIndex.findByPrice(category, min, max, descending, limit)
+						 .orElseGet(() -> {
+							 Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+							 Pageable pageable = PageRequest.of(0, limit, Sort.by(direction, "pricePerUnit", "id"));
+							 BigDecimal low = min == null ? MAX_PRICE.negate() : min;
+							 BigDecimal high = max == null ? MAX_PRICE : max;
+							 return category == null
+									 ? productRepository.findByPriceBetween(low, high, pageable)
+									 : productRepository.findByCategoryAndPriceBetween(category, low, high, pageable);
+						 });
+	}
+	
+	@Override
+	public List<CategoryAggregate> getCategoryAggregates() {
+		return categoryAggregates.current()
+								 .orElseGet(() -> productRepository.aggregateByCategory());
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public long getCatalogVersion() {
+		return catalogVersion.current();
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public void exportProducts(Consumer<Product> consumer) {
+		try(Stream<Product> products = productRepository.streamAllProducts()){
+			Iterator<Product> iterator = products.iterator();
+			int exported = 0;
+			while(iterator.hasNext()) {
+				consumer.accept(iterator.next());
+				// keep the persistence context from growing with the table
+				if(++exported % EXPORT_CLEAR_INTERVAL == 0)
+					entityManager.clear();
+			}
+		}
+	}
+	
+	@Transactional
 	public Product updateProduct(Product product) {
-		return productRepository.save(product);
+		Product savedProduct = saveUnique(product);
+		eventPublisher.publishEvent(ProductChangedEvent.of(this, ChangeType.UPDATED, savedProduct));
+		return savedProduct;
+	}
+	
+	/**
+	 * Changes the locked entity rather than running an UPDATE statement, so
+	 * only this product's second-level cache entry is replaced.
+	 */
+	@Override
+	@Transactional
+	public PatchResult patchProduct(Long id, ProductPatch patch) {
+		Optional<Product> found = productRepository.findByIdForUpdate(id);
+		if(found.isEmpty())
+			return new PatchResult(PatchResult.Status.NOT_FOUND, null);
+		Product product = found.get();
+		if(patch.getVersion() != null && !patch.getVersion().equals(product.getVersion()))
+			return new PatchResult(PatchResult.Status.VERSION_CONFLICT, null);
+		
+		applyPatch(product, patch);
+		try {
+			productRepository.flush();
+		} catch (DataIntegrityViolationException e) {
+			if(isNameConstraintViolation(e))
+				throw new DuplicateProductException("Product found with name: " + patch.getName());
+			throw e;
+		}
+		
+		productNameIndex.add(patch.getName());
+		eventPublisher.publishEvent(ProductChangedEvent.of(this, ChangeType.UPDATED, product));
+		return new PatchResult(PatchResult.Status.APPLIED, product.getVersion());
+	}
+	
+	/**
+	 * A category is changed by one statement filtering on it; its ids are
+	 * read with a locking read first, in the same transaction, so the change
+	 * event names exactly the rows that statement touches.
+	 */
+	@Override
+	@Transactional
+	public int bulkUpdateProducts(ProductBulkUpdate update) {
+		if(update.getIds() == null) {
+			List<Long> ids = productRepository.findIdsByCategoryForUpdate(update.getInCategory());
+			int affected = ids.isEmpty() ? 0 : productRepository.bulkUpdateByCategory(update.getInCategory(), update);
+			publishBulkChange(ChangeType.UPDATED, ids, affected);
+			return affected;
+		}
+		List<Long> ids = distinct(update.getIds());
+		int affected = 0;
+		for(int from = 0; from < ids.size(); from += BULK_CHUNK)
+			affected += productRepository.bulkUpdate(ids.subList(from, Math.min(from + BULK_CHUNK, ids.size())), update);
+		// caches and indexes reload the ids; ids that matched no row simply come back absent
+		publishBulkChange(ChangeType.UPDATED, ids, affected);
+		return affected;
 	}
 	
+	@Transactional
 	public void deleteProductById(Long id) {
-		productRepository.deleteById(id);
+		productRepository.findByIdForUpdate(id).ifPresent(product -> {
+			productRepository.delete(product);
+			eventPublisher.publishEvent(ProductChangedEvent.ofIds(this, ChangeType.DELETED, List.of(id)));
+		});
+	}
+	
+	@Override
+	@Transactional
+	public int bulkDeleteProducts(ProductBulkDelete delete) {
+		if(delete.getIds() == null) {
+			List<Long> ids = productRepository.findIdsByCategoryForUpdate(delete.getCategory());
+			int affected = ids.isEmpty() ? 0 : productRepository.deleteByCategory(delete.getCategory());
+			publishBulkChange(ChangeType.DELETED, ids, affected);
+			return affected;
+		}
+		List<Long> ids = distinct(delete.getIds());
+		int affected = 0;
+		for(int from = 0; from < ids.size(); from += BULK_CHUNK)
+			affected += productRepository.deleteByIds(ids.subList(from, Math.min(from + BULK_CHUNK, ids.size())));
+		publishBulkChange(ChangeType.DELETED, ids, affected);
+		return affected;
+	}
+	
+	/**
+	 * Decrements the Products row under its lock, so the stored stock stays
+	 * the one judge across instances. Units leased to the reservation engine
+	 * are no longer in the row and cannot be taken twice.
+	 */
+	@Override
+	@Transactional
+	public Optional<StockUpdateResult> decreaseStock(Long id, int quantity) {
+		return productRepository.findByIdForUpdate(id).map(product -> {
+			int remaining = product.getRemainingQuantity() == null ? 0 : product.getRemainingQuantity();
+			if(remaining < quantity)
+				return new StockUpdateResult(id, remaining, false);
+			product.setRemainingQuantity(remaining - quantity);
+			// flushed first so the outbox payload carries the new version
+			productRepository.flush();
+			eventPublisher.publishEvent(ProductChangedEvent.of(this, ChangeType.STOCK_CHANGED, product));
+			return new StockUpdateResult(id, product.getRemainingQuantity(), true);
+		});
+	}
+	
+	@Override
+	@Transactional
+	public Optional<StockUpdateResult> increaseStock(Long id, int quantity) {
+		return productRepository.findByIdForUpdate(id).map(product -> {
+			int remaining = product.getRemainingQuantity() == null ? 0 : product.getRemainingQuantity();
+			product.setRemainingQuantity(remaining + quantity);
+			// flushed first so the outbox payload carries the new version
+			productRepository.flush();
+			eventPublisher.publishEvent(ProductChangedEvent.of(this, ChangeType.STOCK_CHANGED, product));
+			return new StockUpdateResult(id, product.getRemainingQuantity(), true);
+		});
+	}
+	
+	private static void applyPatch(Product product, ProductPatch patch) {
+		if(patch.getName() != null)
+			product.setName(patch.getName());
+		if(patch.getDescription() != null)
+			product.setDescription(patch.getDescription());
+		if(patch.getInitialQuantity() != null)
+			product.setInitialQuantity(patch.getInitialQuantity());
+		if(patch.getRemainingQuantity() != null)
+			product.setRemainingQuantity(patch.getRemainingQuantity());
+		if(patch.getCategory() != null)
+			product.setCategory(patch.getCategory());
+		if(patch.getPricePerUnit() != null)
+			product.setPricePerUnit(patch.getPricePerUnit());
+	}
+	
+	private List<Long> distinct(List<Long> ids) {
+		return new ArrayList<>(new LinkedHashSet<>(ids));
+	}
+	
+	private void publishBulkChange(ChangeType type, List<Long> ids, int affected) {
+		if(affected > 0)
+			eventPublisher.publishEvent(ProductChangedEvent.ofIds(this, type, ids));
+	}
+	
+	private Product saveUnique(Product product) {
+		Product savedProduct;
+		try {
+			savedProduct = productRepository.save(product);
+			// inside the caller's transaction the insert would otherwise only fail at commit
+			productRepository.flush();
+		} catch (DataIntegrityViolationException e) {
+			if(isNameConstraintViolation(e))
+				throw new DuplicateProductException("Product found with name: " + product.getName());
+			throw e;
+		}
+		productNameIndex.add(product.getName());
+		return savedProduct;
+	}
+	
+	private static boolean isNameConstraintViolation(DataIntegrityViolationException e) {
+		for(Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if(cause instanceof ConstraintViolationException) {
+				String constraint = ((ConstraintViolationException) cause).getConstraintName();
+				return constraint != null && constraint.toLowerCase(Locale.ROOT).contains(Product.NAME_CONSTRAINT);
+			}
+		}
+		return false;
 	}
 }
@@ -0,0 +1,51 @@
+package com.kk.grocerystore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.kk.grocerystore.controller.ProductController;
+import com.kk.grocerystore.controller.ReactiveProductController;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Starts the reactive profile; JPA runs on H2, the R2DBC side keeps the
+ * MySQL driver of application-reactive.properties, which connects lazily.
+ */
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:reactive-profile;MODE=MySQL;DB_CLOSE_DELAY=-1",
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"grocerystore.outbox.dispatch-enabled=false"
+})
+@ActiveProfiles("reactive")
+class ReactiveProfileContextTest {
+
+	@Autowired
+	private ApplicationContext context;
+	
+	@Autowired
+	private ConnectionFactory connectionFactory;
+	
+	@Test
+	void givenReactiveProfile_whenContextStarts_thenReadsServedOverR2dbcMySql() {
+		
+		// given
+		
+		// when
+		String driver = connectionFactory.getMetadata().getName();
+		
+		// then
+		assertThat(driver).isEqualTo("MySQL");
+		assertThat(context.getBeanNamesForType(ReactiveProductController.class)).hasSize(1);
+		assertThat(context.getBeanNamesForType(ProductController.class)).isEmpty();
+	}
+}
@@ -0,0 +1,69 @@
+package com.kk.grocerystore.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.CatalogVersionRepository;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * The catalog version in the full application context on an in-memory H2
+ * database, where it is read back from catalog_version like another instance
+ * would.
+ */
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:catalog-version;MODE=MySQL;DB_CLOSE_DELAY=-1",
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"grocerystore.outbox.dispatch-enabled=false"
+})
+class CatalogVersionTest {
+
+	@Autowired
+	private ProductService productService;
+	
+	@Autowired
+	private CatalogVersionRepository catalogVersionRepository;
+	
+	@Test
+	void givenStartedContext_whenCountStripes_thenAllStripesExist() {
+		
+		// given
+		
+		// when
+		long stripes = catalogVersionRepository.count();
+		
+		// then
+		assertThat(stripes).isEqualTo(16);
+	}
+	
+	@Test
+	void givenProductWrite_whenGetCatalogVersion_thenPersistedVersionMoved() {
+		
+		// given
+		long before = productService.getCatalogVersion();
+		
+		// when
+		productService.saveProduct(Product.builder()
+										  .name("version-milk")
+										  .category("categ-1")
+										  .initialQuantity(10)
+										  .remainingQuantity(10)
+										  .pricePerUnit(new BigDecimal("1.00"))
+										  .build());
+		productService.listProductPage(null, 10, null);
+		
+		// then
+		assertThat(productService.getCatalogVersion()).isEqualTo(before + 1);
+		assertThat(catalogVersionRepository.sumVersions()).isEqualTo(before + 1);
+	}
+}
@@ -0,0 +1,129 @@
+package com.kk.grocerystore.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kk.grocerystore.model.Product;
+
+class ProductCacheTest {
+
+	private ProductCache productCache;
+	
+	private AtomicInteger loads;
+	
+	private Function<Long, Optional<Product>> loader;
+	
+	@BeforeEach
+	void setUp() {
+		productCache = new ProductCache();
+		ReflectionTestUtils.setField(productCache, "maxSize", 2);
+		ReflectionTestUtils.setField(productCache, "ttlMillis", 60_000L);
+		ReflectionTestUtils.setField(productCache, "serveStaleWhileRefreshing", true);
+		
+		loads = new AtomicInteger();
+		loader = id -> {
+			loads.incrementAndGet();
+			return Optional.of(Product.builder()
+					.id(id)
+					.name("milk" + id)
+					.category("categ-1")
+					.initialQuantity(100)
+					.remainingQuantity(100)
+					.pricePerUnit(new BigDecimal(10)).build());
+		};
+	}
+	
+	@AfterEach
+	void afterEach() {
+		productCache.shutdown();
+	}
+	
+	@Test
+	void givenCachedProduct_whenGet_thenLoadOnlyOnce() {
+		
+		// given
+		productCache.get(1L, loader);
+		
+		// when
+		Optional<Product> product = productCache.get(1L, loader);
+		
+		// then
+		assertThat(product).isPresent();
+		assertThat(loads.get()).isEqualTo(1);
+		assertThat(productCache.stats().getHits()).isEqualTo(1);
+		assertThat(productCache.stats().getMisses()).isEqualTo(1);
+	}
+	
+	@Test
+	void givenReturnedCopyModified_whenGet_thenCachedEntryUnchanged() {
+		
+		// given
+		productCache.get(1L, loader).get().setName("changed");
+		
+		// when
+		Product product = productCache.get(1L, loader).get();
+		
+		// then
+		assertThat(product.getName()).isEqualTo("milk1");
+	}
+	
+	@Test
+	void givenInvalidatedProduct_whenGet_thenReload() {
+		
+		// given
+		productCache.get(1L, loader);
+		productCache.invalidate(1L);
+		
+		// when
+		productCache.get(1L, loader);
+		
+		// then
+		assertThat(loads.get()).isEqualTo(2);
+	}
+	
+	@Test
+	void givenMoreProductsThanMaxSize_whenGet_thenEvictLeastRecentlyUsed() {
+		
+		// given
+		productCache.get(1L, loader);
+		productCache.get(2L, loader);
+		productCache.get(1L, loader);
+		
+		// when
+		productCache.get(3L, loader);
+		productCache.get(1L, loader);
+		productCache.get(2L, loader);
+		
+		// then
+		assertThat(productCache.stats().getEvictions()).isEqualTo(2);
+		assertThat(loads.get()).isEqualTo(4);
+	}
+	
+	@Test
+	void givenExpiredEntry_whenGet_thenServeStaleAndRefreshInBackground() throws Exception {
+		
+		// given
+		ReflectionTestUtils.setField(productCache, "ttlMillis", 0L);
+		productCache.get(1L, loader);
+		Thread.sleep(5);
+		
+		// when
+		Optional<Product> product = productCache.get(1L, loader);
+		
+		// then
+		assertThat(product).isPresent();
+		assertThat(productCache.stats().getStaleHits()).isEqualTo(1);
+		for(int i = 0; i < 100 && loads.get() < 2; i++)
+			Thread.sleep(10);
+		assertThat(loads.get()).isEqualTo(2);
+	}
+}
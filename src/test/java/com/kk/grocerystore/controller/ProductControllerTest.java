@@ -1,5 +1,6 @@
 package com.kk.grocerystore.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.mockito.BDDMockito.*;
@@ -10,8 +11,10 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 
@@ -20,10 +23,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.kk.grocerystore.dto.PatchResult;
+import com.kk.grocerystore.dto.ProductBulkDelete;
+import com.kk.grocerystore.dto.ProductBulkUpdate;
+import com.kk.grocerystore.dto.ProductListing;
+import com.kk.grocerystore.dto.ProductPage;
+import com.kk.grocerystore.dto.ProductPatch;
+import com.kk.grocerystore.dto.ProductSummary;
+import com.kk.grocerystore.dto.ProductSummaryPage;
+import com.kk.grocerystore.dto.StockUpdateResult;
 import com.kk.grocerystore.model.Product;
 import com.kk.grocerystore.service.ProductService;
 
@@ -39,11 +54,12 @@ class ProductControllerTest {
 	@Autowired
 	private ObjectMapper objectMapper;
 	
-	private static Product prod1;
-	private static Product prod2;
+	private Product prod1;
+	private Product prod2;
 	
-	@BeforeAll
-	static void beforeAll() {
+	// fresh per test: the controller updates the objects the mocked service returns
+	@BeforeEach
+	void setUp() {
 			prod1 = Product.builder()
 				.name("Milk13")
 				.category("MM")
@@ -90,12 +106,33 @@ class ProductControllerTest {
 				.andExpect(jsonPath("$.category", is(product1.getCategory())));
 	}
 	
+	@Test
+	void givenProductList_whenSaveProducts_thenReturnSavedProductList() throws Exception{
+		
+		// given
+		List<Product> products = Arrays.asList(prod1, prod2);
+		given(productService.saveProducts(ArgumentMatchers.anyList()))
+			.willAnswer(x -> x.getArgument(0));
+		
+		// when
+		ResultActions response =
+				mockMvc.perform(post("/api/product/bulk")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(products)));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.size()", is(products.size())))
+				.andExpect(jsonPath("$.[1].name", is(prod2.getName())));
+	}
+	
 	@Test
 	void givenProductList_whenGetAllProducts_thenReturnProductList() throws Exception{
 		// given
 		List<Product> products = Arrays.asList(prod1, prod2);
-		given(productService.listProduct())
-			.willReturn(products);
+		given(productService.listProductPage(null, 100, null))
+			.willReturn(new ProductPage(products, null, 42L));
 		
 		// when
 		ResultActions response = mockMvc.perform(get("/api/product"));
@@ -104,10 +141,200 @@ class ProductControllerTest {
 		// then
 		response.andDo(print())
 				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"catalog-42\""))
+				.andExpect(header().doesNotExist(ProductController.NEXT_CURSOR_HEADER))
 				.andExpect(jsonPath("$.size()", is(products.size())))
 				.andExpect(jsonPath("$.[0].name", is("Milk13")));
 	}
 	
+	@Test
+	void givenMoreProductsThanLimit_whenGetAllProducts_thenReturnPageWithNextCursor() throws Exception{
+		// given
+		given(productService.listProductPage(10L, 1, "MM"))
+			.willReturn(new ProductPage(List.of(prod1), 11L, 42L));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product")
+												 .param("after", "10")
+												 .param("limit", "1")
+												 .param("category", "MM"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(header().string(ProductController.NEXT_CURSOR_HEADER, "11"))
+				.andExpect(jsonPath("$.size()", is(1)));
+	}
+	
+	@Test
+	void givenMoreSummariesThanLimit_whenGetProductSummaries_thenReturnPageWithNextCursor() throws Exception{
+		// given
+		given(productService.listProductSummaryPage(null, 2, null))
+			.willReturn(new ProductSummaryPage(List.of(new ProductSummary(1L, "Milk13", new BigDecimal(10), 5),
+														new ProductSummary(2L, "Milk14", new BigDecimal(12), 0)), 2L, 42L));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/summary")
+												 .param("limit", "2"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(header().string(ProductController.NEXT_CURSOR_HEADER, "2"))
+				.andExpect(jsonPath("$.size()", is(2)))
+				.andExpect(jsonPath("$.[0].name", is("Milk13")))
+				.andExpect(jsonPath("$.[0].description").doesNotExist());
+	}
+	
+	@Test
+	void givenCborAccept_whenGetProductsByCategory_thenReturnCborList() throws Exception{
+		// given
+		given(productService.findProductsByCategory("MM"))
+			.willReturn(new ProductListing(Arrays.asList(prod1, prod2), 7L));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/category/{category}", "MM")
+												 .accept(MediaType.APPLICATION_CBOR));
+		
+		// then
+		byte[] body = response.andDo(print())
+							  .andExpect(status().isOk())
+							  .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+							  .andExpect(header().string("Vary", "Accept"))
+							  .andReturn().getResponse().getContentAsByteArray();
+		List<Product> products = new ObjectMapper(new CBORFactory()).readValue(body, new TypeReference<List<Product>>() {});
+		assertThat(products).extracting(Product::getName).containsExactly("Milk13", "Milk12");
+	}
+	
+	@Test
+	void givenProducts_whenExportProducts_thenStreamNdjsonLines() throws Exception{
+		// given
+		willAnswer(x -> {
+			Consumer<Product> consumer = x.getArgument(0);
+			consumer.accept(prod1);
+			consumer.accept(prod2);
+			return null;
+		}).given(productService).exportProducts(any());
+		
+		// when
+		MvcResult result = mockMvc.perform(get("/api/product/export"))
+								  .andExpect(request().asyncStarted())
+								  .andReturn();
+		ResultActions response = mockMvc.perform(asyncDispatch(result));
+		
+		// then
+		assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(TimeUnit.MINUTES.toMillis(30));
+		String[] lines = response.andDo(print())
+								 .andExpect(status().isOk())
+								 .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+								 .andReturn().getResponse().getContentAsString().split("\n");
+		assertThat(lines).hasSize(2);
+		assertThat(objectMapper.readValue(lines[1], Product.class).getName())
+			.isEqualTo(prod2.getName());
+	}
+	
+	@Test
+	void givenCategory_whenGetProductsByCategory_thenReturnProductList() throws Exception{
+		// given
+		given(productService.findProductsByCategory("MM"))
+			.willReturn(new ProductListing(Arrays.asList(prod1, prod2), 7L));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/category/{category}", "MM"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"catalog-7\""))
+				.andExpect(jsonPath("$.size()", is(2)));
+	}
+	
+	@Test
+	void givenSnapshotVersionSeen_whenGetProductsByCategory_thenReturnNotModified() throws Exception{
+		// given
+		given(productService.findProductsByCategory("MM"))
+			.willReturn(new ProductListing(Arrays.asList(prod1, prod2), 7L));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/category/{category}", "MM")
+												 .header("If-None-Match", "\"catalog-7\""));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+	}
+	
+	@Test
+	void givenProductsInStock_whenGetRemainingProducts_thenReturnProductList() throws Exception{
+		// given
+		given(productService.findRemainingProducts())
+			.willReturn(new ProductListing(List.of(prod1), null));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/in-stock"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist("ETag"))
+				.andExpect(jsonPath("$.[0].name", is(prod1.getName())));
+	}
+	
+	@Test
+	void givenKeywords_whenSearchProducts_thenReturnRankedProducts() throws Exception{
+		// given
+		given(productService.searchProducts("milk", "MM", 20))
+			.willReturn(List.of(prod1, prod2));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/search")
+												 .param("q", "milk")
+												 .param("category", "MM"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size()", is(2)))
+				.andExpect(jsonPath("$[0].name", is(prod1.getName())));
+	}
+	
+	@Test
+	void givenPrefix_whenAutocomplete_thenReturnNames() throws Exception{
+		// given
+		given(productService.autocompleteNames("mil", 10))
+			.willReturn(List.of("Milk13", "Milk12"));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/autocomplete")
+												 .param("prefix", "mil"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0]", is("Milk13")))
+				.andExpect(jsonPath("$[1]", is("Milk12")));
+	}
+	
+	@Test
+	void givenPriceRange_whenGetProductsByPrice_thenReturnProductsFromService() throws Exception{
+		// given
+		given(productService.findProductsByPrice("MM", null, new BigDecimal("5"), true, 100))
+			.willReturn(List.of(prod2));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/price")
+												 .param("category", "MM")
+												 .param("max", "5")
+												 .param("sort", "desc"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size()", is(1)))
+				.andExpect(jsonPath("$[0].name", is(prod2.getName())));
+	}
+	
 	@Test
 	void givenValidId_whenGetProductById_thenReturnProductObject() throws Exception{
 		// given
@@ -124,6 +351,60 @@ class ProductControllerTest {
 				.andExpect(jsonPath("$.name", is(prod1.getName())));
 	}
 	
+	@Test
+	void givenMatchingETag_whenGetProductById_thenReturnNotModified() throws Exception{
+		// given
+		Long id = 1L;
+		Product product = prod1.toBuilder().id(id).version(3L).build();
+		given(productService.getProductById(id))
+			.willReturn(Optional.of(product));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product/{id}", id)
+												 .header("If-None-Match", "\"1-3\""));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", "\"1-3\""))
+				.andExpect(content().string(""));
+	}
+	
+	@Test
+	void givenUnchangedCatalog_whenGetAllProducts_thenReturnNotModifiedWithoutQuery() throws Exception{
+		// given
+		given(productService.getCatalogVersion())
+			.willReturn(42L);
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product")
+												 .header("If-None-Match", "\"catalog-42\""));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isNotModified());
+		verify(productService, never()).listProductPage(any(), anyInt(), any());
+	}
+	
+	@Test
+	void givenChangedCatalog_whenGetAllProducts_thenETagOfThePageRead() throws Exception{
+		// given
+		given(productService.getCatalogVersion())
+			.willReturn(43L);
+		given(productService.listProductPage(null, 100, null))
+			.willReturn(new ProductPage(List.of(prod1), null, 44L));
+		
+		// when
+		ResultActions response = mockMvc.perform(get("/api/product")
+												 .header("If-None-Match", "\"catalog-42\""));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(header().stringValues("ETag", "\"catalog-44\""))
+				.andExpect(jsonPath("$.size()", is(1)));
+	}
+	
 	@Test
 	void givenNotValidId_whenGetProductById_thenReturnNothing() throws Exception {
 		// given
@@ -189,6 +470,152 @@ class ProductControllerTest {
 		verify(productService, never()).saveProduct(any());
 	}
 	
+	@Test
+	void givenMatchingVersion_whenPatchProduct_thenReturnNoContentWithNewETag() throws Exception{
+		
+		// given
+		Long id = 1L;
+		given(productService.patchProduct(eq(id), any(ProductPatch.class)))
+			.willReturn(new PatchResult(PatchResult.Status.APPLIED, 4L));
+		
+		// when
+		ResultActions response = mockMvc.perform(patch("/api/product/{id}", id)
+												 .header("If-Match", "\"1-3\"")
+												 .contentType(MediaType.APPLICATION_JSON)
+												 .content("{\"pricePerUnit\":12}"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isNoContent())
+				.andExpect(header().string("ETag", "\"1-4\""));
+		verify(productService).patchProduct(eq(id), argThat(patch -> patch.getVersion() == 3L
+				&& patch.getName() == null));
+	}
+	
+	@Test
+	void givenStaleVersion_whenPatchProduct_thenReturnConflict() throws Exception{
+		
+		// given
+		Long id = 1L;
+		given(productService.patchProduct(eq(id), any(ProductPatch.class)))
+			.willReturn(new PatchResult(PatchResult.Status.VERSION_CONFLICT, null));
+		
+		// when
+		ResultActions response = mockMvc.perform(patch("/api/product/{id}", id)
+												 .contentType(MediaType.APPLICATION_JSON)
+												 .content("{\"remainingQuantity\":10,\"version\":2}"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isConflict());
+	}
+	
+	@Test
+	void givenEmptyPatch_whenPatchProduct_thenReturnBadRequest() throws Exception{
+		
+		// given
+		Long id = 1L;
+		
+		// when
+		ResultActions response = mockMvc.perform(patch("/api/product/{id}", id)
+												 .contentType(MediaType.APPLICATION_JSON)
+												 .content("{\"version\":2}"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isBadRequest());
+		verify(productService, never()).patchProduct(any(), any());
+	}
+	
+	@Test
+	void givenIdsAndPrice_whenBulkUpdateProducts_thenReturnAffectedRows() throws Exception{
+		
+		// given
+		given(productService.bulkUpdateProducts(any(ProductBulkUpdate.class)))
+			.willReturn(2);
+		
+		// when
+		ResultActions response = mockMvc.perform(patch("/api/product/bulk")
+												 .contentType(MediaType.APPLICATION_JSON)
+												 .content("{\"ids\":[1,2,3],\"pricePerUnit\":9.99}"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.affected", is(2)));
+		verify(productService).bulkUpdateProducts(argThat(update -> update.getIds().size() == 3
+				&& update.getInCategory() == null && update.getCategory() == null));
+	}
+	
+	@Test
+	void givenIdsAndCategory_whenBulkDeleteProducts_thenReturnBadRequest() throws Exception{
+		
+		// given
+		
+		// when
+		ResultActions response = mockMvc.perform(post("/api/product/bulk/delete")
+												 .contentType(MediaType.APPLICATION_JSON)
+												 .content("{\"ids\":[1,2],\"category\":\"MM\"}"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isBadRequest());
+		verify(productService, never()).bulkDeleteProducts(any(ProductBulkDelete.class));
+	}
+	
+	@Test
+	void givenEnoughStock_whenDecreaseStock_thenReturnRemainingQuantity() throws Exception{
+		
+		// given
+		Long id = 1L;
+		given(productService.decreaseStock(id, 5))
+			.willReturn(Optional.of(new StockUpdateResult(id, 995, true)));
+		
+		// when
+		ResultActions response = mockMvc.perform(post("/api/product/{id}/stock/decrement", id)
+												 .param("quantity", "5"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.remainingQuantity", is(995)));
+	}
+	
+	@Test
+	void givenInsufficientStock_whenDecreaseStock_thenReturnConflict() throws Exception{
+		
+		// given
+		Long id = 1L;
+		given(productService.decreaseStock(id, 5))
+			.willReturn(Optional.of(new StockUpdateResult(id, 3, false)));
+		
+		// when
+		ResultActions response = mockMvc.perform(post("/api/product/{id}/stock/decrement", id)
+												 .param("quantity", "5"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.remainingQuantity", is(3)));
+	}
+	
+	@Test
+	void givenNotValidId_whenIncreaseStock_thenReturnNotFound() throws Exception{
+		
+		// given
+		Long id = 1L;
+		given(productService.increaseStock(id, 5))
+			.willReturn(Optional.empty());
+		
+		// when
+		ResultActions response = mockMvc.perform(post("/api/product/{id}/stock/increment", id)
+												 .param("quantity", "5"));
+		
+		// then
+		response.andDo(print())
+				.andExpect(status().isNotFound());
+	}
+	
 	@Test
 	void givenId_whenDeleteProductById_thenReturnNothing() throws Exception{
 		
@@ -0,0 +1,121 @@
+package com.kk.grocerystore.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.kk.grocerystore.datasource.ReplicaProperties.Selection;
+
+class ReplicaRoutingDataSourceTest {
+
+	private DataSource primary;
+	
+	private DataSource firstReplica;
+	
+	private DataSource secondReplica;
+	
+	private Connection primaryConnection;
+	
+	private Connection firstReplicaConnection;
+	
+	private Connection secondReplicaConnection;
+	
+	@BeforeEach
+	void setUp() throws SQLException {
+		primary = mock(DataSource.class);
+		firstReplica = mock(DataSource.class);
+		secondReplica = mock(DataSource.class);
+		primaryConnection = mock(Connection.class);
+		firstReplicaConnection = mock(Connection.class);
+		secondReplicaConnection = mock(Connection.class);
+		given(primary.getConnection()).willReturn(primaryConnection);
+		given(firstReplica.getConnection()).willReturn(firstReplicaConnection);
+		given(secondReplica.getConnection()).willReturn(secondReplicaConnection);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+	
+	@Test
+	void givenReadWriteTransaction_whenGetConnection_thenPrimary() throws SQLException {
+		
+		// given
+		ReplicaRoutingDataSource dataSource = routing(List.of(firstReplica));
+		
+		// when
+		Connection connection = dataSource.getConnection();
+		
+		// then
+		assertThat(connection).isSameAs(primaryConnection);
+	}
+	
+	@Test
+	void givenReadOnlyTransaction_whenGetConnection_thenReplicasInTurn() throws SQLException {
+		
+		// given
+		ReplicaRoutingDataSource dataSource = routing(List.of(firstReplica, secondReplica));
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		
+		// when
+		List<Connection> connections = List.of(dataSource.getConnection(), dataSource.getConnection(), dataSource.getConnection());
+		
+		// then
+		assertThat(connections).containsExactly(firstReplicaConnection, secondReplicaConnection, firstReplicaConnection);
+	}
+	
+	@Test
+	void givenFailingReplica_whenGetConnection_thenPrimaryUntilRetry() throws SQLException {
+		
+		// given
+		given(firstReplica.getConnection()).willThrow(new SQLException("Connection refused"));
+		ReplicaRoutingDataSource dataSource = routing(List.of(firstReplica, secondReplica));
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		
+		// when
+		Connection fallback = dataSource.getConnection();
+		List<Connection> afterwards = List.of(dataSource.getConnection(), dataSource.getConnection());
+		
+		// then
+		assertThat(fallback).isSameAs(primaryConnection);
+		assertThat(afterwards).containsOnly(secondReplicaConnection);
+	}
+	
+	@Test
+	void givenPrimaryRouting_whenGetConnectionInReadOnlyTransaction_thenPrimary() throws SQLException {
+		
+		// given
+		ReplicaRoutingDataSource dataSource = routing(List.of(firstReplica));
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		
+		// when
+		Connection pinned = PrimaryRouting.call(() -> {
+			try {
+				return dataSource.getConnection();
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		
+		// then
+		assertThat(pinned).isSameAs(primaryConnection);
+		assertThat(PrimaryRouting.isForced()).isFalse();
+		assertThat(dataSource.getConnection()).isSameAs(firstReplicaConnection);
+	}
+	
+	private ReplicaRoutingDataSource routing(List<DataSource> replicas) {
+		return new ReplicaRoutingDataSource(primary, replicas, Selection.ROUND_ROBIN, 60_000);
+	}
+}
@@ -0,0 +1,134 @@
+package com.kk.grocerystore.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and a replica that
+ * has not caught up: a row that only exists on one of them shows where a
+ * read was served from.
+ */
+@SpringBootTest(properties = {
+	"spring.datasource.url=" + ReplicaRoutingIntegrationTest.PRIMARY_URL,
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"grocerystore.outbox.dispatch-enabled=false",
+	"grocerystore.datasource.replicas[0].url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+	"grocerystore.datasource.replicas[0].username=sa",
+	"grocerystore.datasource.replicas[0].password="
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingIntegrationTest {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	
+	static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	
+	@Autowired
+	private ProductService productService;
+	
+	@Autowired
+	private MockMvc mockMvc;
+	
+	private JdbcTemplate replica;
+	
+	@BeforeEach
+	void setUp() {
+		replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+		replica.execute("create table if not exists products (id bigint not null primary key, name varchar(255) not null, "
+				+ "description varchar(255), initial_quantity integer, remaining_quantity integer, "
+				+ "category varchar(255) not null, price_per_unit decimal(19,2), version bigint default 0 not null)");
+		replica.update("delete from products");
+		replica.update("insert into products (id, name, initial_quantity, remaining_quantity, category, price_per_unit, version) "
+				+ "values (1000000, 'replica-only', 10, 10, 'categ-1', 1.00, 0)");
+		replica.execute("create table if not exists catalog_version (stripe integer not null primary key, version bigint not null)");
+		replica.update("delete from catalog_version");
+		replica.update("insert into catalog_version (stripe, version) values (0, 3), (1, 4)");
+	}
+	
+	@Test
+	void givenReadOnlyTransaction_whenListProductPage_thenServedByReplica() {
+		
+		// given
+		productService.saveProduct(product("routing-primary-1"));
+		
+		// when
+		List<Product> products = productService.listProductPage(null, 10, null).getProducts();
+		
+		// then
+		assertThat(products).extracting(Product::getName).containsExactly("replica-only");
+	}
+	
+	@Test
+	void givenPrimaryRouting_whenListProductPage_thenServedByPrimary() {
+		
+		// given
+		Product saved = productService.saveProduct(product("routing-primary-2"));
+		
+		// when
+		List<Product> products = PrimaryRouting.call(() -> productService.listProductPage(saved.getId() - 1, 10, null)).getProducts();
+		
+		// then
+		assertThat(products).extracting(Product::getName).containsExactly("routing-primary-2");
+	}
+	
+	@Test
+	void givenWrite_whenSaveProduct_thenOnlyPrimaryHasIt() {
+		
+		// given
+		
+		// when
+		Product saved = productService.saveProduct(product("routing-primary-3"));
+		
+		// then
+		assertThat(replica.queryForObject("select count(*) from products where name = 'routing-primary-3'", Integer.class)).isZero();
+		assertThat(productService.getProductById(saved.getId())).isPresent();
+	}
+	
+	@Test
+	void givenReplicaReads_whenGetAllProducts_thenETagIsReplicaCatalogVersion() throws Exception {
+		
+		// given
+		productService.saveProduct(product("routing-primary-4"));
+		
+		// when / then
+		mockMvc.perform(get("/api/product"))
+			   .andExpect(status().isOk())
+			   .andExpect(header().string("ETag", "\"catalog-7\""))
+			   .andExpect(jsonPath("$[0].name", Matchers.is("replica-only")));
+		mockMvc.perform(get("/api/product").header("If-None-Match", "\"catalog-7\""))
+			   .andExpect(status().isNotModified());
+	}
+	
+	private static Product product(String name) {
+		return Product.builder()
+					  .name(name)
+					  .category("categ-1")
+					  .initialQuantity(10)
+					  .remainingQuantity(10)
+					  .pricePerUnit(new BigDecimal("1.00"))
+					  .build();
+	}
+}
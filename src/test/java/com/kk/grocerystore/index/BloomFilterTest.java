@@ -0,0 +1,44 @@
+package com.kk.grocerystore.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+	@Test
+	void givenAddedValues_whenMightContain_thenNoFalseNegatives() {
+		
+		// given
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for(int i = 0; i < 10_000; i++)
+			filter.add("product-" + i);
+		
+		// when
+		int misses = 0;
+		for(int i = 0; i < 10_000; i++)
+			if(!filter.mightContain("product-" + i))
+				misses++;
+		
+		// then
+		assertThat(misses).isEqualTo(0);
+	}
+	
+	@Test
+	void givenSizedFilter_whenMightContainUnknownValues_thenFalsePositiveRateIsNearTarget() {
+		
+		// given
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for(int i = 0; i < 10_000; i++)
+			filter.add("product-" + i);
+		
+		// when
+		int falsePositives = 0;
+		for(int i = 0; i < 100_000; i++)
+			if(filter.mightContain("other-" + i))
+				falsePositives++;
+		
+		// then
+		assertThat(falsePositives / 100_000.0).isLessThan(0.03);
+	}
+}
@@ -0,0 +1,117 @@
+package com.kk.grocerystore.index;
+
+import static com.kk.grocerystore.model.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+
+class CatalogLoaderTest {
+
+	private ProductRepository productRepository;
+	
+	private EntityManager entityManager;
+	
+	private CatalogLoader catalogLoader;
+	
+	private CategoryAggregates aggregates;
+	
+	private PriceIndex priceIndex;
+	
+	@BeforeEach
+	void setUp() {
+		productRepository = mock(ProductRepository.class);
+		entityManager = mock(EntityManager.class);
+		catalogLoader = new CatalogLoader();
+		ReflectionTestUtils.setField(catalogLoader, "productRepository", productRepository);
+		ReflectionTestUtils.setField(catalogLoader, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(catalogLoader, "entityManager", entityManager);
+		aggregates = new CategoryAggregates();
+		ReflectionTestUtils.setField(aggregates, "productRepository", productRepository);
+		priceIndex = new PriceIndex();
+		ReflectionTestUtils.setField(priceIndex, "productRepository", productRepository);
+	}
+	
+	@Test
+	void givenSeveralViews_whenLoad_thenOneScanFillsAllAndClearsPersistenceContext() {
+		
+		// given
+		given(productRepository.streamAllProducts())
+			.willReturn(LongStream.rangeClosed(1, 2500).mapToObj(id -> product(id).build()));
+		
+		// when
+		boolean loaded = catalogLoader.load(List.of(aggregates, priceIndex));
+		
+		// then
+		assertThat(loaded).isTrue();
+		assertThat(aggregates.current().get()).extracting(CategoryAggregate::getSkuCount).containsExactly(2500L);
+		assertThat(priceIndex.findByPrice(null, null, null, false, 3).get()).extracting(Product::getId)
+			.containsExactly(1L, 2L, 3L);
+		verify(productRepository, times(1)).streamAllProducts();
+		verify(entityManager, times(2)).clear();
+	}
+	
+	@Test
+	void givenWriteDuringRebuild_whenLoad_thenReadsNotBlockedAndWriteReplayed() {
+		
+		// given
+		aggregates.replaceAll(List.of(product(1L).pricePerUnit(new BigDecimal("1.00")).build()));
+		given(productRepository.streamAllProducts()).willReturn(Stream.of(product(1L).pricePerUnit(new BigDecimal("1.00")).build())
+				.peek(scanned -> {
+					// the scan has already read product 1 when this write commits
+					Optional<List<CategoryAggregate>> during = CompletableFuture.supplyAsync(aggregates::current)
+																		.orTimeout(5, TimeUnit.SECONDS).join();
+					assertThat(during).isPresent();
+					ProductChangedEvent event = ProductChangedEvent.of(this, ChangeType.STOCK_CHANGED,
+							product(1L).remainingQuantity(3).pricePerUnit(new BigDecimal("1.00")).build());
+					catalogLoader.onProductChanged(event);
+					aggregates.onProductChanged(event);
+				}));
+		given(productRepository.findAllById(List.of(1L)))
+			.willReturn(List.of(product(1L).remainingQuantity(3).pricePerUnit(new BigDecimal("1.00")).build()));
+		
+		// when
+		catalogLoader.load(List.of(aggregates));
+		
+		// then
+		assertThat(aggregates.current().get()).containsExactly(
+				new CategoryAggregate("categ-1", 1, 3, new BigDecimal("3.00"), 0));
+	}
+	
+	@Test
+	void givenFailingScan_whenLoad_thenViewsKeepPreviousState() {
+		
+		// given
+		aggregates.replaceAll(List.of(product(1L).build()));
+		given(productRepository.streamAllProducts()).willThrow(new IllegalStateException("connection lost"));
+		
+		// when
+		boolean loaded = catalogLoader.load(List.of(aggregates));
+		
+		// then
+		assertThat(loaded).isFalse();
+		assertThat(aggregates.current().get()).extracting(CategoryAggregate::getSkuCount).containsExactly(1L);
+	}
+}
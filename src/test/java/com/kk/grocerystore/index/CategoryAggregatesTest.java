@@ -0,0 +1,72 @@
+package com.kk.grocerystore.index;
+
+import static com.kk.grocerystore.model.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+
+class CategoryAggregatesTest {
+
+	private CategoryAggregates aggregates;
+	
+	@BeforeEach
+	void setUp() {
+		aggregates = new CategoryAggregates();
+	}
+	
+	@Test
+	void givenNotLoadedAggregates_whenCurrent_thenReturnEmpty() {
+		
+		// given
+		
+		// when / then
+		assertThat(aggregates.current()).isEmpty();
+	}
+	
+	@Test
+	void givenProducts_whenCurrent_thenReturnTotalsPerCategory() {
+		
+		// given
+		aggregates.replaceAll(List.of(
+				product(1L).category("categ-1").remainingQuantity(10).pricePerUnit(new BigDecimal("2.50")).build(),
+				product(2L).category("categ-1").remainingQuantity(0).pricePerUnit(new BigDecimal("1.00")).build(),
+				product(3L).category("categ-2").remainingQuantity(4).pricePerUnit(new BigDecimal("0.99")).build()));
+		
+		// when
+		List<CategoryAggregate> result = aggregates.current().get();
+		
+		// then
+		assertThat(result).containsExactly(
+				new CategoryAggregate("categ-1", 2, 10, new BigDecimal("25.00"), 1),
+				new CategoryAggregate("categ-2", 1, 4, new BigDecimal("3.96"), 0));
+	}
+	
+	@Test
+	void givenWrites_whenProductChanged_thenTotalsAdjustedIncrementally() {
+		
+		// given
+		aggregates.replaceAll(List.of(
+				product(1L).category("categ-1").remainingQuantity(10).pricePerUnit(new BigDecimal("2.50")).build(),
+				product(2L).category("categ-1").remainingQuantity(0).pricePerUnit(new BigDecimal("1.00")).build(),
+				product(3L).category("categ-2").remainingQuantity(4).pricePerUnit(new BigDecimal("0.99")).build()));
+		
+		// when
+		aggregates.onProductChanged(ProductChangedEvent.of(this, ChangeType.STOCK_CHANGED, product(1L).category("categ-1").remainingQuantity(0).pricePerUnit(new BigDecimal("2.50")).build()));
+		aggregates.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED, product(2L).category("categ-2").remainingQuantity(5).pricePerUnit(new BigDecimal("1.00")).build()));
+		aggregates.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED, product(2L).category("categ-2").remainingQuantity(5).pricePerUnit(new BigDecimal("1.00")).build()));
+		aggregates.onProductChanged(ProductChangedEvent.ofIds(this, ChangeType.DELETED, List.of(3L)));
+		
+		// then
+		assertThat(aggregates.current().get()).containsExactly(
+				new CategoryAggregate("categ-1", 1, 0, new BigDecimal("0.00"), 1),
+				new CategoryAggregate("categ-2", 1, 5, new BigDecimal("5.00"), 0));
+	}
+}
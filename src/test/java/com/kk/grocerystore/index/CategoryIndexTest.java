@@ -0,0 +1,105 @@
+package com.kk.grocerystore.index;
+
+import static com.kk.grocerystore.model.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kk.grocerystore.dto.ProductListing;
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.Product;
+
+class CategoryIndexTest {
+
+	private CategoryIndex categoryIndex;
+	
+	@BeforeEach
+	void setUp() {
+		categoryIndex = new CategoryIndex();
+		ReflectionTestUtils.setField(categoryIndex, "consistency", CategoryIndex.Consistency.SYNCHRONOUS);
+	}
+	
+	@Test
+	void givenNotLoadedIndex_whenFindByCategory_thenReturnEmpty() {
+		
+		// given
+		
+		// when / then
+		assertThat(categoryIndex.findByCategory("categ-1")).isEmpty();
+		assertThat(categoryIndex.findInStock()).isEmpty();
+	}
+	
+	@Test
+	void givenLoadedIndex_whenFindByCategoryAndInStock_thenReturnFromSnapshot() {
+		
+		// given
+		categoryIndex.replaceAll(List.of(
+				product(2L).name("milk12").category("categ-1").remainingQuantity(10).build(),
+				product(1L).name("milk13").category("categ-1").remainingQuantity(0).build(),
+				product(3L).name("bread").category("categ-2").remainingQuantity(5).build()));
+		
+		// when
+		List<Product> category = categoryIndex.findByCategory("categ-1").get().getProducts();
+		List<Product> inStock = categoryIndex.findInStock().get().getProducts();
+		
+		// then
+		assertThat(category).extracting(Product::getId).containsExactly(1L, 2L);
+		assertThat(inStock).extracting(Product::getId).containsExactlyInAnyOrder(2L, 3L);
+	}
+	
+	@Test
+	void givenUpdatedCategory_whenProductChanged_thenProductMovesBetweenCategories() {
+		
+		// given
+		categoryIndex.replaceAll(List.of(product(1L).name("milk12").category("categ-1").remainingQuantity(10).build()));
+		List<Product> before = categoryIndex.findByCategory("categ-1").get().getProducts();
+		
+		// when
+		categoryIndex.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED,
+				product(1L).name("milk12").category("categ-2").remainingQuantity(0).build()));
+		
+		// then
+		assertThat(before).hasSize(1);
+		assertThat(categoryIndex.findByCategory("categ-1").get().getProducts()).isEmpty();
+		assertThat(categoryIndex.findByCategory("categ-2").get().getProducts()).hasSize(1);
+		assertThat(categoryIndex.findInStock().get().getProducts()).isEmpty();
+	}
+	
+	@Test
+	void givenDeletedProduct_whenProductChanged_thenRemovedFromSnapshot() {
+		
+		// given
+		categoryIndex.replaceAll(List.of(product(1L).name("milk12").category("categ-1").remainingQuantity(10).build(),
+										 product(2L).name("milk13").category("categ-1").remainingQuantity(10).build()));
+		
+		// when
+		categoryIndex.onProductChanged(ProductChangedEvent.ofIds(this, ChangeType.DELETED, List.of(1L)));
+		
+		// then
+		assertThat(categoryIndex.findByCategory("categ-1").get().getProducts()).extracting(Product::getId).containsExactly(2L);
+	}
+	
+	@Test
+	void givenAppliedChange_whenFindByCategory_thenVersionFollowsSnapshot() {
+		
+		// given
+		categoryIndex.replaceAll(List.of(product(1L).name("milk12").category("categ-1").remainingQuantity(10).build()));
+		ProductListing before = categoryIndex.findByCategory("categ-1").get();
+		
+		// when
+		categoryIndex.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED,
+				product(1L).name("milk12").category("categ-1").remainingQuantity(0).build()));
+		ProductListing after = categoryIndex.findByCategory("categ-1").get();
+		
+		// then
+		assertThat(after.getVersion()).isGreaterThan(before.getVersion());
+		assertThat(categoryIndex.findInStock().get().getVersion()).isEqualTo(after.getVersion());
+		assertThat(before.getProducts().get(0).getRemainingQuantity()).isEqualTo(10);
+		assertThat(after.getProducts().get(0).getRemainingQuantity()).isZero();
+	}
+}
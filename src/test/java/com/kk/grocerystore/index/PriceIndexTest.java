@@ -0,0 +1,100 @@
+package com.kk.grocerystore.index;
+
+import static com.kk.grocerystore.model.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.Product;
+
+class PriceIndexTest {
+
+	private PriceIndex priceIndex;
+	
+	@BeforeEach
+	void setUp() {
+		priceIndex = new PriceIndex();
+		priceIndex.replaceAll(List.of(
+				product(1L).category("categ-1").pricePerUnit(new BigDecimal("4.99")).build(),
+				product(2L).category("categ-1").pricePerUnit(new BigDecimal("1.50")).build(),
+				product(3L).category("categ-1").pricePerUnit(new BigDecimal("5.00")).build(),
+				product(4L).category("categ-2").pricePerUnit(new BigDecimal("2.25")).build(),
+				product(5L).category("categ-2").pricePerUnit(new BigDecimal("1.50")).build()));
+	}
+	
+	@Test
+	void givenCategoryAndMaxPrice_whenFindByPrice_thenCheapestFirstWithinRange() {
+		
+		// given
+		
+		// when
+		List<Product> result = priceIndex.findByPrice("categ-1", null, new BigDecimal("4.999"), false, 10).get();
+		
+		// then
+		assertThat(result).extracting(Product::getId).containsExactly(2L, 1L);
+	}
+	
+	@Test
+	void givenNoCategory_whenFindByPriceDescending_thenMergeAllCategories() {
+		
+		// given
+		
+		// when
+		List<Product> result = priceIndex.findByPrice(null, new BigDecimal("1.50"), new BigDecimal("5"), true, 4).get();
+		
+		// then
+		assertThat(result).extracting(Product::getId).containsExactly(3L, 1L, 4L, 5L);
+	}
+	
+	@Test
+	void givenPriceChangeAndDelete_whenProductChanged_thenOrderFollows() {
+		
+		// given
+		
+		// when
+		priceIndex.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED, product(3L).category("categ-1").pricePerUnit(new BigDecimal("0.99")).build()));
+		priceIndex.onProductChanged(ProductChangedEvent.ofIds(this, ChangeType.DELETED, List.of(2L)));
+		
+		// then
+		assertThat(priceIndex.findByPrice("categ-1", null, null, false, 10).get())
+			.extracting(Product::getId).containsExactly(3L, 1L);
+	}
+	
+	@Test
+	void givenBoundsBeyondLongCents_whenFindByPrice_thenClampedInsteadOfFailing() {
+		
+		// given
+		BigDecimal huge = new BigDecimal("1e30");
+		
+		// when
+		List<Product> all = priceIndex.findByPrice("categ-1", huge.negate(), huge, false, 10).get();
+		List<Product> none = priceIndex.findByPrice("categ-1", huge, null, false, 10).get();
+		
+		// then
+		assertThat(all).extracting(Product::getId).containsExactly(2L, 1L, 3L);
+		assertThat(none).isEmpty();
+	}
+	
+	@Test
+	void givenNewProductsAndTies_whenProductChanged_thenInsertedAtSortedPositions() {
+		
+		// given
+		
+		// when
+		priceIndex.onProductChanged(ProductChangedEvent.of(this, ChangeType.CREATED, product(6L).category("categ-1").pricePerUnit(new BigDecimal("4.99")).build()));
+		priceIndex.onProductChanged(ProductChangedEvent.of(this, ChangeType.CREATED, product(0L).category("categ-1").pricePerUnit(new BigDecimal("9.00")).build()));
+		priceIndex.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED, product(4L).category("categ-1").pricePerUnit(new BigDecimal("1.50")).build()));
+		
+		// then
+		assertThat(priceIndex.findByPrice("categ-1", null, null, false, 10).get())
+			.extracting(Product::getId).containsExactly(2L, 4L, 1L, 6L, 3L, 0L);
+		assertThat(priceIndex.findByPrice("categ-2", null, null, false, 10).get())
+			.extracting(Product::getId).containsExactly(5L);
+	}
+}
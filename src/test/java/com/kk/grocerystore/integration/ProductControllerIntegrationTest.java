@@ -33,6 +33,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.grocerystore.cache.ProductCache;
 import com.kk.grocerystore.model.Product;
 import com.kk.grocerystore.repository.ProductRepository;
 
@@ -49,6 +50,9 @@ public class ProductControllerIntegrationTest {
 	@Autowired
 	private ObjectMapper objectMapper;
 	
+	@Autowired
+	private ProductCache productCache;
+	
 	private static Product prod1;
 	private static Product prod2;
 	
@@ -75,6 +79,8 @@ public class ProductControllerIntegrationTest {
 	@BeforeEach
 	void setUp(){
 		productRepository.deleteAll();
+		// rows are removed behind the service, so drop what the cache still holds
+		productCache.invalidateAll();
 	}
 	
 	@AfterEach
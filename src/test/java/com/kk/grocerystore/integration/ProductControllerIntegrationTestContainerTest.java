@@ -27,6 +27,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.grocerystore.cache.ProductCache;
 import com.kk.grocerystore.model.Product;
 import com.kk.grocerystore.repository.ProductRepository;
 
@@ -43,6 +44,9 @@ public class ProductControllerIntegrationTestContainerTest extends AbstractInteg
 	@Autowired
 	private ObjectMapper objectMapper;
 	
+	@Autowired
+	private ProductCache productCache;
+	
 	private static Product prod1;
 	private static Product prod2;
 	
@@ -69,6 +73,8 @@ public class ProductControllerIntegrationTestContainerTest extends AbstractInteg
 	@BeforeEach
 	void setUp(){
 		productRepository.deleteAll();
+		// rows are removed behind the service, so drop what the cache still holds
+		productCache.invalidateAll();
 	}
 	
 	@AfterEach
@@ -0,0 +1,104 @@
+package com.kk.grocerystore.limiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+	private static final long FAST = 5_000_000;
+	
+	private static final long SLOW = 50_000_000;
+	
+	@Test
+	void givenLimitInFlight_whenTryAcquire_thenRejected() {
+		
+		// given
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+		limit.tryAcquire();
+		limit.tryAcquire();
+		
+		// when
+		boolean acquired = limit.tryAcquire();
+		
+		// then
+		assertThat(acquired).isFalse();
+		assertThat(limit.getInFlight()).isEqualTo(2);
+	}
+	
+	@Test
+	void givenSaturatedAtSteadyLatency_whenRequestsComplete_thenLimitGrows() {
+		
+		// given
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+		
+		// when
+		saturate(limit, FAST, 200);
+		
+		// then
+		assertThat(limit.getLimit()).isGreaterThan(10);
+		assertThat(limit.getInFlight()).isZero();
+	}
+	
+	@Test
+	void givenLatencyRises_whenRequestsComplete_thenLimitShrinks() {
+		
+		// given
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 1, 100);
+		saturate(limit, FAST, 500);
+		int before = limit.getLimit();
+		
+		// when
+		saturate(limit, SLOW, 5);
+		
+		// then
+		assertThat(limit.getLimit()).isLessThan(before);
+	}
+	
+	@Test
+	void givenDroppedRequests_whenReleased_thenLimitBacksOffToMinimum() {
+		
+		// given
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 100);
+		
+		// when
+		for(int i = 0; i < 100; i++) {
+			limit.tryAcquire();
+			limit.onDropped();
+		}
+		
+		// then
+		assertThat(limit.getLimit()).isEqualTo(4);
+		assertThat(limit.getInFlight()).isZero();
+	}
+	
+	@Test
+	void givenLongStreamsIgnored_whenLatencyRises_thenLimitStillShrinks() {
+		
+		// given
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 1, 100);
+		saturate(limit, FAST, 500);
+		for(int i = 0; i < 50; i++) {
+			limit.tryAcquire();
+			limit.onIgnore();
+		}
+		int before = limit.getLimit();
+		
+		// when
+		saturate(limit, SLOW, 5);
+		
+		// then
+		assertThat(limit.getLimit()).isLessThan(before);
+		assertThat(limit.getInFlight()).isZero();
+	}
+	
+	private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos, int rounds) {
+		for(int round = 0; round < rounds; round++) {
+			int acquired = 0;
+			while(limit.tryAcquire())
+				acquired++;
+			for(int i = 0; i < acquired; i++)
+				limit.onSuccess(rttNanos);
+		}
+	}
+}
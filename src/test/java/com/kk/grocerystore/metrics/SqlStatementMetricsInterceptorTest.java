@@ -0,0 +1,49 @@
+package com.kk.grocerystore.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SqlStatementMetricsInterceptorTest {
+
+	@Test
+	void givenStatementsDuringRequest_whenAfterCompletion_thenRecordCountForUriPattern() {
+		
+		// given
+		MeterRegistry registry = new SimpleMeterRegistry();
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("meterRegistry", registry);
+		SqlStatementMetricsInterceptor interceptor = new SqlStatementMetricsInterceptor();
+		ReflectionTestUtils.setField(interceptor, "meterRegistry", beanFactory.getBeanProvider(MeterRegistry.class));
+		
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/product/1");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/product/{id}");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		SqlStatementCounter counter = new SqlStatementCounter();
+		SqlStatementCounter.reset();
+		counter.inspect("select 1");
+		
+		// when
+		interceptor.preHandle(request, response, null);
+		counter.inspect("select * from products where id=?");
+		counter.inspect("select * from products where id=?");
+		interceptor.afterCompletion(request, response, null, null);
+		
+		// then
+		DistributionSummary summary = registry.find(SqlStatementMetricsInterceptor.METRIC_NAME)
+											  .tag("uri", "/api/product/{id}")
+											  .summary();
+		assertThat(summary).isNotNull();
+		assertThat(summary.count()).isEqualTo(1);
+		assertThat(summary.totalAmount()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,23 @@
+package com.kk.grocerystore.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Products for the in-memory index tests. Every field an index reads is
+ * set, so a test only overrides what it asserts on.
+ */
+public final class TestProducts {
+
+	private TestProducts() {
+	}
+	
+	public static Product.ProductBuilder product(Long id) {
+		return Product.builder()
+				.id(id)
+				.name("product-" + id)
+				.category("categ-1")
+				.initialQuantity(100)
+				.remainingQuantity(10)
+				.pricePerUnit(new BigDecimal(10));
+	}
+}
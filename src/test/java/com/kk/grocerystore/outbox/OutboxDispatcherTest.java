@@ -0,0 +1,77 @@
+package com.kk.grocerystore.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.OutboxEvent;
+import com.kk.grocerystore.repository.OutboxEventRepository;
+
+@SpringBootTest(properties = {"grocerystore.outbox.poll-interval-ms=3600000", "grocerystore.outbox.batch-size=2"})
+class OutboxDispatcherTest {
+
+	@Autowired
+	private OutboxDispatcher dispatcher;
+	
+	@MockBean
+	private OutboxEventRepository outboxEventRepository;
+	
+	@MockBean
+	private OutboxSink sink;
+	
+	@Test
+	void givenPendingEntries_whenDispatchBatch_thenPublishedThenDeleted() {
+		
+		// given
+		List<OutboxEvent> batch = List.of(entry(1L, 10L), entry(2L, 11L));
+		given(outboxEventRepository.findOldestForUpdate(any(Pageable.class)))
+			.willReturn(batch);
+		
+		// when
+		int delivered = dispatcher.dispatchBatch();
+		
+		// then
+		assertThat(delivered).isEqualTo(2);
+		verify(sink).publish(batch);
+		verify(outboxEventRepository).deleteByIds(List.of(1L, 2L));
+	}
+	
+	@Test
+	void givenFailingSink_whenDispatchBatch_thenEntriesKept() {
+		
+		// given
+		List<OutboxEvent> batch = List.of(entry(1L, 10L));
+		given(outboxEventRepository.findOldestForUpdate(any(Pageable.class)))
+			.willReturn(batch);
+		willThrow(new IllegalStateException("broker down")).given(sink).publish(batch);
+		
+		// when
+		int delivered = dispatcher.dispatchBatch();
+		
+		// then
+		assertThat(delivered).isZero();
+		verify(outboxEventRepository, never()).deleteByIds(any());
+	}
+	
+	private static OutboxEvent entry(Long id, Long productId) {
+		return OutboxEvent.builder()
+						  .id(id)
+						  .productId(productId)
+						  .type(ChangeType.UPDATED)
+						  .createdAt(Instant.now())
+						  .build();
+	}
+}
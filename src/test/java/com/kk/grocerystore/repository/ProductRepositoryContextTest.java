@@ -0,0 +1,91 @@
+package com.kk.grocerystore.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.model.Product;
+
+/**
+ * Repository queries in the full application context on an in-memory H2
+ * database, with the JPA settings of application.properties; the second-level
+ * cache fails startup when a region of ehcache.xml cannot be found.
+ */
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:repository-context;MODE=MySQL;DB_CLOSE_DELAY=-1",
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"grocerystore.outbox.dispatch-enabled=false"
+})
+class ProductRepositoryContextTest {
+
+	@Autowired
+	private ProductRepository productRepository;
+	
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	
+	@AfterEach
+	void tearDown() {
+		productRepository.deleteAllInBatch();
+	}
+	
+	@Test
+	void givenCommittedProduct_whenFindByIdInNewSessions_thenServedFromSecondLevelCache() {
+		
+		// given
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Product saved = productRepository.save(product("context-milk", "categ-1", 10, "1.00"));
+		long hitsBefore = statistics.getSecondLevelCacheHitCount();
+		
+		// when
+		productRepository.findById(saved.getId());
+		Optional<Product> found = productRepository.findById(saved.getId());
+		
+		// then
+		assertThat(found).isPresent();
+		assertThat(statistics.getSecondLevelCacheHitCount() - hitsBefore).isEqualTo(2);
+	}
+	
+	@Test
+	void givenProducts_whenAggregateByCategory_thenConstructorExpressionMapsTotals() {
+		
+		// given
+		productRepository.save(product("context-milk", "categ-1", 10, "2.50"));
+		productRepository.save(product("context-cream", "categ-1", 0, "4.00"));
+		productRepository.save(product("context-bread", "categ-2", 4, "0.99"));
+		
+		// when
+		List<CategoryAggregate> aggregates = productRepository.aggregateByCategory();
+		
+		// then
+		assertThat(aggregates).containsExactly(
+				new CategoryAggregate("categ-1", 2, 10, new BigDecimal("25.00"), 1),
+				new CategoryAggregate("categ-2", 1, 4, new BigDecimal("3.96"), 0));
+	}
+	
+	private static Product product(String name, String category, int remaining, String price) {
+		return Product.builder()
+					  .name(name)
+					  .category(category)
+					  .initialQuantity(100)
+					  .remainingQuantity(remaining)
+					  .pricePerUnit(new BigDecimal(price))
+					  .build();
+	}
+}
@@ -233,7 +233,7 @@ class ProductRepositoryIntegrationTest {
 		
 		Product product2 = Product.builder()
 				.category("categ-1")
-				.name("milk12")
+				.name("milk13")
 				.initialQuantity(100)
 				.remainingQuantity(0)
 				.pricePerUnit(new BigDecimal(10)).build();
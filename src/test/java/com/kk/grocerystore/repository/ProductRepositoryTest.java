@@ -1,17 +1,31 @@
 package com.kk.grocerystore.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.kk.grocerystore.dto.CategoryAggregate;
+import com.kk.grocerystore.dto.ProductSummary;
 import com.kk.grocerystore.model.Product;
 
 /**
@@ -20,6 +34,7 @@ import com.kk.grocerystore.model.Product;
  *
  */
 @DataJpaTest
+@AutoConfigureTestDatabase (replace = Replace.NONE)
 class ProductRepositoryTest {
 
 	@Autowired
@@ -28,6 +43,9 @@ class ProductRepositoryTest {
 	@Autowired
 	TestEntityManager entityManager;
 	
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	
 	private Product product;
 	 
 	private Product product1;
@@ -230,7 +248,7 @@ class ProductRepositoryTest {
 		
 		Product product2 = Product.builder()
 				.category("categ-1")
-				.name("milk12")
+				.name("milk13")
 				.initialQuantity(100)
 				.remainingQuantity(0)
 				.pricePerUnit(new BigDecimal(10)).build();
@@ -247,4 +265,149 @@ class ProductRepositoryTest {
 	}
 	
 	
+	@Test
+	void givenCursor_whenFindProductsAfter_thenReturnNextRowsInIdOrder() {
+		
+		// given
+		Product product2 = Product.builder()
+				.category("categ-2")
+				.name("milk13")
+				.initialQuantity(100)
+				.remainingQuantity(100)
+				.pricePerUnit(new BigDecimal(10)).build();
+		
+		Product product3 = Product.builder()
+				.category("categ-1")
+				.name("milk14")
+				.initialQuantity(100)
+				.remainingQuantity(100)
+				.pricePerUnit(new BigDecimal(10)).build();
+		
+		productRepository.save(product1);
+		productRepository.save(product2);
+		productRepository.save(product3);
+		
+		// when
+		List<Product> page = productRepository.findProductsAfter(product1.getId(), PageRequest.of(0, 1));
+		List<Product> categoryPage = productRepository.findProductsByCategoryAfter("categ-1", product1.getId(), PageRequest.of(0, 10));
+		
+		// then
+		assertThat(page.size()).isEqualTo(1);
+		assertThat(page.get(0).getId()).isEqualTo(product2.getId());
+		assertThat(categoryPage.size()).isEqualTo(1);
+		assertThat(categoryPage.get(0).getId()).isEqualTo(product3.getId());
+	}
+	
+	@Test
+	void givenProducts_whenFindSummariesAfter_thenReturnSummariesWithoutManagedEntities() {
+		
+		// given
+		Product product2 = Product.builder()
+				.category("categ-2")
+				.name("milk13")
+				.description("semi-skimmed")
+				.initialQuantity(100)
+				.remainingQuantity(40)
+				.pricePerUnit(new BigDecimal("2.50")).build();
+		
+		productRepository.save(product1);
+		productRepository.save(product2);
+		entityManager.flush();
+		entityManager.clear();
+		
+		// when
+		List<ProductSummary> summaries = productRepository.findSummariesAfter(product1.getId(), PageRequest.of(0, 10));
+		
+		// then
+		assertThat(summaries.size()).isEqualTo(1);
+		assertThat(summaries.get(0).getName()).isEqualTo("milk13");
+		assertThat(summaries.get(0).getRemainingQuantity()).isEqualTo(40);
+		assertThat(summaries.get(0).getPricePerUnit()).isEqualByComparingTo("2.50");
+		assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+	}
+	
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void givenCommittedProduct_whenFindByIdInNewSessions_thenServedFromSecondLevelCache() {
+		
+		// given
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Product saved = productRepository.save(Product.builder()
+				.category("categ-1")
+				.name("second-level-cached-milk")
+				.initialQuantity(100)
+				.remainingQuantity(100)
+				.pricePerUnit(new BigDecimal(10)).build());
+		long hitsBefore = statistics.getSecondLevelCacheHitCount();
+		
+		try {
+			// when
+			productRepository.findById(saved.getId());
+			Optional<Product> found = productRepository.findById(saved.getId());
+			
+			// then
+			assertThat(found).isPresent();
+			assertThat(statistics.getSecondLevelCacheHitCount() - hitsBefore).isEqualTo(2);
+		} finally {
+			productRepository.deleteById(saved.getId());
+		}
+	}
+	
+	@Test
+	void givenProducts_whenFindAllByIdForUpdate_thenReturnedInIdOrder() {
+		
+		// given
+		Product first = productRepository.save(product);
+		product1.setName("milk13");
+		Product second = productRepository.save(product1);
+		
+		// when
+		List<Product> locked = productRepository.findAllByIdForUpdate(List.of(second.getId(), first.getId()));
+		
+		// then
+		assertThat(locked).extracting(Product::getId).containsExactly(first.getId(), second.getId());
+	}
+	
+	@Test
+	void givenProductNameInDb_whenSaveSameName_thenThrowsException() {
+		
+		// given
+		productRepository.saveAndFlush(product);
+		
+		// when
+		org.junit.jupiter.api.function.Executable executable = () -> productRepository.saveAndFlush(product1);
+		
+		// then
+		assertThrows(DataIntegrityViolationException.class, executable);
+	}
+	
+	
+	@Test
+	void givenProductsInCategories_whenAggregateByCategory_thenReturnTotals() {
+		
+		// given
+		Product outOfStock = Product.builder()
+				.category("categ-1")
+				.name("milk13")
+				.initialQuantity(100)
+				.remainingQuantity(0)
+				.pricePerUnit(new BigDecimal("2.50")).build();
+		Product other = Product.builder()
+				.category("categ-2")
+				.name("bread")
+				.initialQuantity(10)
+				.remainingQuantity(4)
+				.pricePerUnit(new BigDecimal("0.99")).build();
+		entityManager.persist(product1);
+		entityManager.persist(outOfStock);
+		entityManager.persist(other);
+		
+		// when
+		List<CategoryAggregate> aggregates = productRepository.aggregateByCategory();
+		
+		// then
+		assertThat(aggregates).containsExactly(
+				new CategoryAggregate("categ-1", 2, 100, new BigDecimal("1000.00"), 1),
+				new CategoryAggregate("categ-2", 1, 4, new BigDecimal("3.96"), 0));
+	}
 }
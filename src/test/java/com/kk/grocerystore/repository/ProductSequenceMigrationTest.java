@@ -0,0 +1,68 @@
+package com.kk.grocerystore.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kk.grocerystore.model.Product;
+
+/**
+ * H2 in MySQL mode with case-sensitive identifiers, like MySQL on Linux, and
+ * the product_seq table Hibernate creates for MySQL.
+ */
+class ProductSequenceMigrationTest {
+
+	private static final String URL = "jdbc:h2:mem:sequence-migration;MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1";
+	
+	private JdbcTemplate jdbcTemplate;
+	
+	private ProductSequenceMigration migration;
+	
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(URL, "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("drop table if exists products");
+		jdbcTemplate.execute("drop table if exists product_seq");
+		jdbcTemplate.execute("create table products (id bigint not null primary key, name varchar(255) not null)");
+		jdbcTemplate.execute("create table product_seq (next_val bigint)");
+		jdbcTemplate.update("insert into product_seq values (1)");
+		migration = new ProductSequenceMigration();
+		ReflectionTestUtils.setField(migration, "dataSource", dataSource);
+	}
+	
+	@Test
+	void givenIdsFromIdentityColumn_whenMigrate_thenSequenceClearsMaxIdByABlock() {
+		
+		// given
+		jdbcTemplate.update("insert into products values (1, 'milk'), (120, 'bread')");
+		
+		// when
+		migration.migrate();
+		
+		// then
+		assertThat(nextVal()).isEqualTo(120L + Product.ID_ALLOCATION_SIZE + 1);
+	}
+	
+	@Test
+	void givenSequenceAlreadyAhead_whenMigrate_thenLeftAlone() {
+		
+		// given
+		jdbcTemplate.update("insert into products values (1, 'milk')");
+		jdbcTemplate.update("update product_seq set next_val = 500");
+		
+		// when
+		migration.migrate();
+		
+		// then
+		assertThat(nextVal()).isEqualTo(500L);
+	}
+	
+	private Long nextVal() {
+		return jdbcTemplate.queryForObject("select next_val from product_seq", Long.class);
+	}
+}
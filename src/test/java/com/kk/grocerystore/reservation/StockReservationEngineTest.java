@@ -0,0 +1,255 @@
+package com.kk.grocerystore.reservation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kk.grocerystore.dto.ProductPatch;
+import com.kk.grocerystore.dto.StockUpdateResult;
+import com.kk.grocerystore.model.Product;
+import com.kk.grocerystore.repository.ProductRepository;
+import com.kk.grocerystore.service.ProductService;
+
+/**
+ * Runs against an in-memory H2 database so leases, flushes and the
+ * locking stock reads are real statements.
+ */
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:reservation;MODE=MySQL;DB_CLOSE_DELAY=-1",
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"grocerystore.outbox.dispatch-enabled=false",
+	"grocerystore.reservation.flush-interval-ms=3600000",
+	"grocerystore.reservation.lease-size=" + StockReservationEngineTest.LEASE_SIZE
+})
+class StockReservationEngineTest {
+
+	static final int LEASE_SIZE = 10;
+	
+	@Autowired
+	private StockReservationEngine reservationEngine;
+	
+	@Autowired
+	private ProductService productService;
+	
+	@Autowired
+	private ProductRepository productRepository;
+	
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	
+	@Test
+	void givenConcurrentReservations_whenReserve_thenStockNeverGoesNegative() throws Exception {
+		
+		// given
+		int stock = 1000;
+		Long id = product("stress", stock);
+		int threads = 64;
+		int attemptsPerThread = 100;
+		
+		AtomicInteger reserved = new AtomicInteger();
+		AtomicBoolean negativeSeen = new AtomicBoolean();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		
+		// when
+		for(int t = 0; t < threads; t++) {
+			executor.submit(() -> {
+				start.await();
+				for(int i = 0; i < attemptsPerThread; i++) {
+					StockUpdateResult result = reservationEngine.reserve(id, 1).get();
+					if(result.isApplied())
+						reserved.incrementAndGet();
+					if(result.getRemainingQuantity() < 0)
+						negativeSeen.set(true);
+					// flush while reservations are still coming in
+					if(i % 25 == 0)
+						reservationEngine.flush();
+				}
+				return null;
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+		reservationEngine.flush();
+		
+		// then
+		assertThat(reserved.get()).isEqualTo(stock);
+		assertThat(negativeSeen.get()).isFalse();
+		assertThat(reservationEngine.reserve(id, 1).get().getRemainingQuantity()).isEqualTo(0);
+		assertThat(productRepository.findRemainingQuantityById(id)).contains(0);
+	}
+	
+	@Test
+	void givenReleasedStock_whenReserve_thenReleasedUnitsAvailableAgain() {
+		
+		// given
+		Long id = product("release", 5);
+		reservationEngine.reserve(id, 5);
+		
+		// when
+		reservationEngine.release(id, 2);
+		StockUpdateResult result = reservationEngine.reserve(id, 2).get();
+		
+		// then
+		assertThat(result.isApplied()).isTrue();
+		assertThat(result.getRemainingQuantity()).isEqualTo(0);
+	}
+	
+	@Test
+	void givenReservation_whenReleaseMoreThanOutstanding_thenNotApplied() {
+		
+		// given
+		Long id = product("over-release", 5);
+		reservationEngine.reserve(id, 2);
+		
+		// when
+		StockUpdateResult result = reservationEngine.release(id, 3).get();
+		reservationEngine.flush();
+		
+		// then
+		assertThat(result.isApplied()).isFalse();
+		assertThat(result.getRemainingQuantity()).isEqualTo(3);
+		assertThat(productRepository.findRemainingQuantityById(id)).contains(3);
+	}
+	
+	@Test
+	void givenNoReservation_whenRelease_thenNotApplied() {
+		
+		// given
+		Long id = product("no-reservation", 5);
+		
+		// when
+		StockUpdateResult result = reservationEngine.release(id, 1).get();
+		
+		// then
+		assertThat(result.isApplied()).isFalse();
+		assertThat(productRepository.findRemainingQuantityById(id)).contains(5);
+	}
+	
+	@Test
+	void givenLeasedUnits_whenReserve_thenNoStatements() {
+		
+		// given
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Long id = product("leased", 100);
+		reservationEngine.reserve(id, 1);
+		
+		// when
+		long statementsBefore = statistics.getPrepareStatementCount();
+		for(int i = 0; i < LEASE_SIZE - 1; i++)
+			reservationEngine.reserve(id, 1);
+		reservationEngine.release(id, 3);
+		
+		// then
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsBefore);
+	}
+	
+	@Test
+	void givenReservation_whenFlush_thenIdleLeaseReturnedToProduct() {
+		
+		// given
+		Long id = product("lease", 20);
+		
+		// when
+		reservationEngine.reserve(id, 4);
+		Optional<Integer> storedBeforeFlush = productRepository.findRemainingQuantityById(id);
+		reservationEngine.flush();
+		
+		// then
+		assertThat(storedBeforeFlush).contains(20 - LEASE_SIZE);
+		assertThat(productRepository.findRemainingQuantityById(id)).contains(16);
+	}
+	
+	@Test
+	void givenLeasedStock_whenDecreaseStock_thenLeasedUnitsAreNotTakenTwice() {
+		
+		// given
+		Long id = product("decrement", 5);
+		reservationEngine.reserve(id, 5);
+		
+		// when
+		StockUpdateResult result = productService.decreaseStock(id, 1).get();
+		reservationEngine.flush();
+		
+		// then
+		assertThat(result.isApplied()).isFalse();
+		assertThat(productRepository.findRemainingQuantityById(id)).contains(0);
+	}
+	
+	@Test
+	void givenAbsoluteStockWrite_whenFlush_thenIdleLeaseAddedOnTop() {
+		
+		// given
+		Long id = product("lowered", 5);
+		reservationEngine.reserve(id, 4);
+		productService.patchProduct(id, ProductPatch.builder().remainingQuantity(1).build());
+		
+		// when
+		reservationEngine.flush();
+		
+		// then
+		assertThat(productRepository.findRemainingQuantityById(id)).contains(2);
+		assertThat(reservationEngine.reserve(id, 2).get().isApplied()).isTrue();
+	}
+	
+	@Test
+	void givenCachedProduct_whenOtherProductFlushed_thenStillServedFromSecondLevelCache() {
+		
+		// given
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Long cached = product("cached", 5);
+		Long reserved = product("flushed", 5);
+		productRepository.findById(cached);
+		reservationEngine.reserve(reserved, 2);
+		
+		// when
+		reservationEngine.flush();
+		long hitsBefore = statistics.getSecondLevelCacheHitCount();
+		productRepository.findById(cached);
+		
+		// then
+		assertThat(statistics.getSecondLevelCacheHitCount() - hitsBefore).isEqualTo(1);
+		assertThat(productRepository.findRemainingQuantityById(reserved)).contains(3);
+	}
+	
+	@Test
+	void givenUnknownProduct_whenReserve_thenReturnEmpty() {
+		
+		// when
+		Optional<StockUpdateResult> result = reservationEngine.reserve(Long.MAX_VALUE, 1);
+		
+		// then
+		assertThat(result).isEmpty();
+	}
+	
+	private Long product(String name, int stock) {
+		return productService.saveProduct(Product.builder()
+												 .name("reservation-" + name)
+												 .category("categ-1")
+												 .initialQuantity(stock)
+												 .remainingQuantity(stock)
+												 .pricePerUnit(new BigDecimal(10))
+												 .build())
+							 .getId();
+	}
+}
@@ -0,0 +1,104 @@
+package com.kk.grocerystore.search;
+
+import static com.kk.grocerystore.model.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.Product;
+
+class ProductNameTrieTest {
+
+	private ProductNameTrie trie;
+	
+	@BeforeEach
+	void setUp() {
+		trie = new ProductNameTrie();
+	}
+	
+	@Test
+	void givenNotLoadedTrie_whenComplete_thenReturnEmpty() {
+		
+		// given
+		
+		// when / then
+		assertThat(trie.complete("mi", 5)).isEmpty();
+	}
+	
+	@Test
+	void givenNamesWithSharedPrefix_whenComplete_thenBestStockedFirst() {
+		
+		// given
+		trie.replaceAll(List.of(product(1L).name("Milk").remainingQuantity(5).build(),
+								product(2L).name("Milk chocolate").remainingQuantity(50).build(),
+								product(3L).name("Mint tea").remainingQuantity(20).build(),
+								product(4L).name("Bread").remainingQuantity(100).build()));
+		
+		// when
+		List<String> names = trie.complete("MI", 2).get();
+		
+		// then
+		assertThat(names).containsExactly("Milk chocolate", "Mint tea");
+		assertThat(trie.complete("milk", 10).get()).containsExactly("Milk chocolate", "Milk");
+		assertThat(trie.complete("x", 10).get()).isEmpty();
+	}
+	
+	@Test
+	void givenStockAndNameChanges_whenProductChanged_thenRankingFollows() {
+		
+		// given
+		trie.replaceAll(List.of(product(1L).name("Milk").remainingQuantity(5).build(),
+								product(2L).name("Milk chocolate").remainingQuantity(50).build(),
+								product(3L).name("Mint tea").remainingQuantity(20).build()));
+		
+		// when
+		trie.onProductChanged(ProductChangedEvent.of(this, ChangeType.STOCK_CHANGED, product(1L).name("Milk").remainingQuantity(500).build()));
+		trie.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED, product(3L).name("Green tea").remainingQuantity(20).build()));
+		trie.onProductChanged(ProductChangedEvent.ofIds(this, ChangeType.DELETED, List.of(2L)));
+		
+		// then
+		assertThat(trie.complete("mi", 10).get()).containsExactly("Milk");
+		assertThat(trie.complete("gr", 10).get()).containsExactly("Green tea");
+	}
+	
+	@Test
+	void givenRandomNames_whenComplete_thenMatchesSortedScan() {
+		
+		// given
+		Random random = new Random(42);
+		List<Product> products = new ArrayList<>();
+		for(long i = 0; i < 2000; i++) {
+			StringBuilder name = new StringBuilder();
+			for(int c = 0; c < 3 + random.nextInt(6); c++)
+				name.append((char) ('a' + random.nextInt(4)));
+			products.add(product(i).name(name.append(i).toString()).remainingQuantity(random.nextInt(1000)).build());
+		}
+		trie.replaceAll(products);
+		for(long i = 0; i < 2000; i += 3)
+			trie.onProductChanged(ProductChangedEvent.ofIds(this, ChangeType.DELETED, List.of(i)));
+		
+		// when
+		List<String> names = trie.complete("ab", 10).get();
+		
+		// then
+		List<Integer> expected = products.stream()
+				.filter(product -> product.getId() % 3 != 0 && product.getName().startsWith("ab"))
+				.map(Product::getRemainingQuantity)
+				.sorted(Comparator.reverseOrder())
+				.limit(10)
+				.collect(Collectors.toList());
+		List<Integer> actual = names.stream()
+				.map(name -> products.stream().filter(p -> p.getName().equals(name)).findFirst().get().getRemainingQuantity())
+				.collect(Collectors.toList());
+		assertThat(actual).isEqualTo(expected);
+	}
+}
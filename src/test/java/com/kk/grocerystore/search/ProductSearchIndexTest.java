@@ -0,0 +1,121 @@
+package com.kk.grocerystore.search;
+
+import static com.kk.grocerystore.model.TestProducts.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kk.grocerystore.event.ProductChangedEvent;
+import com.kk.grocerystore.event.ProductChangedEvent.ChangeType;
+import com.kk.grocerystore.model.Product;
+
+class ProductSearchIndexTest {
+
+	private ProductSearchIndex searchIndex;
+	
+	@BeforeEach
+	void setUp() {
+		searchIndex = new ProductSearchIndex();
+	}
+	
+	@Test
+	void givenNotLoadedIndex_whenSearch_thenReturnEmpty() {
+		
+		// given
+		
+		// when / then
+		assertThat(searchIndex.search("milk", null, 10)).isEmpty();
+	}
+	
+	@Test
+	void givenKeywordInNameAndDescription_whenSearch_thenNameMatchRanksFirst() {
+		
+		// given
+		searchIndex.replaceAll(List.of(
+				product(1L).name("Chocolate bar").description("Made with whole milk").category("SWEETS").build(),
+				product(2L).name("Whole milk").description("Fresh, 1 litre").category("DAIRY").build(),
+				product(3L).name("Bread").description("Sourdough").category("BAKERY").build()));
+		
+		// when
+		List<Product> result = searchIndex.search("Milk", null, 10).get();
+		
+		// then
+		assertThat(result).extracting(Product::getId).containsExactly(2L, 1L);
+	}
+	
+	@Test
+	void givenSeveralTerms_whenSearch_thenDocumentsMatchingMoreTermsRankFirst() {
+		
+		// given
+		searchIndex.replaceAll(List.of(
+				product(1L).name("Organic apples").category("FRUIT").build(),
+				product(2L).name("Organic green apples").category("FRUIT").build(),
+				product(3L).name("Green tea").category("DRINKS").build()));
+		
+		// when
+		List<Product> result = searchIndex.search("green apples", null, 10).get();
+		
+		// then
+		assertThat(result.get(0).getId()).isEqualTo(2L);
+		assertThat(result).hasSize(3);
+	}
+	
+	@Test
+	void givenCategoryAndLimit_whenSearch_thenOnlyBestMatchesOfCategory() {
+		
+		// given
+		searchIndex.replaceAll(List.of(
+				product(1L).name("Milk chocolate").category("SWEETS").build(),
+				product(2L).name("Milk").category("DAIRY").build(),
+				product(3L).name("Milk 2%").description("Milk milk").category("DAIRY").build()));
+		
+		// when
+		List<Product> result = searchIndex.search("milk", "DAIRY", 1).get();
+		
+		// then
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).getCategory()).isEqualTo("DAIRY");
+	}
+	
+	@Test
+	void givenRenamedAndDeletedProducts_whenProductChanged_thenIndexFollows() {
+		
+		// given
+		searchIndex.replaceAll(List.of(product(1L).name("Milk").category("DAIRY").build(),
+									   product(2L).name("Butter").category("DAIRY").build()));
+		
+		// when
+		searchIndex.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED,
+				product(1L).name("Oat drink").category("DAIRY").build()));
+		searchIndex.onProductChanged(ProductChangedEvent.ofIds(this, ChangeType.DELETED, List.of(2L)));
+		
+		// then
+		assertThat(searchIndex.search("milk", null, 10).get()).isEmpty();
+		assertThat(searchIndex.search("butter", null, 10).get()).isEmpty();
+		assertThat(searchIndex.search("oat", null, 10).get()).extracting(Product::getId).containsExactly(1L);
+	}
+	
+	@Test
+	void givenManyUpdates_whenCompacted_thenSearchStillFindsCurrentProducts() {
+		
+		// given
+		List<Product> products = new ArrayList<>();
+		for(long i = 0; i < 100; i++)
+			products.add(product(i).name("Product " + i).description("original").category("C").build());
+		searchIndex.replaceAll(products);
+		
+		// when
+		for(int round = 1; round <= 3; round++)
+			for(long i = 0; i < 100; i++)
+				searchIndex.onProductChanged(ProductChangedEvent.of(this, ChangeType.UPDATED,
+						product(i).name("Product " + i).description("renamed " + round).category("C").build()));
+		
+		// then
+		assertThat(searchIndex.search("original", null, 200).get()).isEmpty();
+		assertThat(searchIndex.search("renamed", null, 200).get()).hasSize(100);
+	}
+}
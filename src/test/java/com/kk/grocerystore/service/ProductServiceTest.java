@@ -1,25 +1,36 @@
 package com.kk.grocerystore.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import com.kk.grocerystore.dto.PatchResult;
+import com.kk.grocerystore.dto.ProductBulkDelete;
+import com.kk.grocerystore.dto.ProductBulkUpdate;
+import com.kk.grocerystore.dto.ProductPage;
+import com.kk.grocerystore.dto.ProductPatch;
+import com.kk.grocerystore.dto.StockUpdateResult;
 import com.kk.grocerystore.exception.DuplicateProductException;
+import com.kk.grocerystore.index.ProductNameIndex;
 import com.kk.grocerystore.model.Product;
 import com.kk.grocerystore.repository.ProductRepository;
 
@@ -32,6 +43,9 @@ class ProductServiceTest {
 	@MockBean
 	private ProductRepository productRepository;
 	
+	@Autowired
+	private ProductNameIndex productNameIndex;
+	
 	private Product product1;
 	
 	@BeforeEach
@@ -66,23 +80,124 @@ class ProductServiceTest {
 	void givenProductInDb_whenSaveProduct_thenThrowsException() {
 		
 		// given
+		productNameIndex.add(product1.getName());
 		given(productRepository.findByName(product1.getName()))
 			.willReturn(Optional.of(product1));
-		
-		
+
+
 //		given(productRepository.save(product1))
 //			.willReturn(product1);
 		// when
 		Executable executable = () -> productService.saveProduct(product1);
 		
 		// then
-		org.junit.jupiter.api.Assertions.assertThrows(DuplicateProductException.class, executable);
+		assertThrows(DuplicateProductException.class, executable);
 		verify(productRepository, never()).save(any(Product.class));
 	}
 	
 	@Test
-	void givenProductList_whenListProduct_ThenProductList() {
+	void givenNameUnknownToIndex_whenSaveProduct_thenSkipLookup() {
+		
+		// given
+		Product product = Product.builder()
+							.category("categ-1")
+							.name("never-indexed-name")
+							.initialQuantity(100)
+							.remainingQuantity(100)
+							.pricePerUnit(new BigDecimal(10)).build();
+		given(productRepository.save(product))
+			.willReturn(product);
+		
+		// when
+		productService.saveProduct(product);
+		
+		// then
+		verify(productRepository, never()).findByName(product.getName());
+		assertThat(productNameIndex.mightContain(product.getName())).isTrue();
+	}
+	
+	@Test
+	void givenConcurrentDuplicate_whenSaveProduct_thenTranslateConstraintViolation() {
+		
+		// given
+		Product product = Product.builder()
+							.category("categ-1")
+							.name("raced-name")
+							.initialQuantity(100)
+							.remainingQuantity(100)
+							.pricePerUnit(new BigDecimal(10)).build();
+		given(productRepository.save(product))
+			.willThrow(new DataIntegrityViolationException("duplicate",
+					new ConstraintViolationException("duplicate", new SQLException(), Product.NAME_CONSTRAINT)));
+		
+		// when
+		Executable executable = () -> productService.saveProduct(product);
+		
+		// then
+		assertThrows(DuplicateProductException.class, executable);
+	}
 	
+	@Test
+	void givenNewProducts_whenSaveProducts_thenSavedProductList() {
+		
+		// given
+		Product product2 = Product.builder()
+							.category("categ-1")
+							.name("milk13")
+							.initialQuantity(100)
+							.remainingQuantity(100)
+							.pricePerUnit(new BigDecimal(10)).build();
+		
+		given(productRepository.findExistingNames(any()))
+			.willReturn(List.of());
+		given(productRepository.save(any(Product.class)))
+			.willAnswer(x -> x.getArgument(0));
+		
+		// when
+		List<Product> savedProducts = productService.saveProducts(List.of(product1, product2));
+		
+		// then
+		assertThat(savedProducts.size()).isEqualTo(2);
+		verify(productRepository, times(1)).findExistingNames(any());
+	}
+	
+	@Test
+	void givenProductNameInDb_whenSaveProducts_thenThrowsException() {
+		
+		// given
+		given(productRepository.findExistingNames(any()))
+			.willReturn(List.of(product1.getName()));
+		
+		// when
+		Executable executable = () -> productService.saveProducts(List.of(product1));
+		
+		// then
+		assertThrows(DuplicateProductException.class, executable);
+		verify(productRepository, never()).save(any(Product.class));
+	}
+	
+	@Test
+	void givenRepeatedNameInRequest_whenSaveProducts_thenThrowsException() {
+		
+		// given
+		Product product2 = Product.builder()
+							.category("categ-2")
+							.name(product1.getName())
+							.initialQuantity(100)
+							.remainingQuantity(100)
+							.pricePerUnit(new BigDecimal(10)).build();
+		
+		// when
+		Executable executable = () -> productService.saveProducts(List.of(product1, product2));
+		
+		// then
+		assertThrows(DuplicateProductException.class, executable);
+		verify(productRepository, never()).findExistingNames(any());
+	}
+	
+	@Test
+	void givenProductList_whenListProduct_ThenProductList() {
+		
 		
 		// given
 		Product product2 = Product.builder()
@@ -120,6 +235,44 @@ class ProductServiceTest {
 		assertThat(products.size()).isEqualTo(0);		
 	}
 	
+	@Test
+	void givenMoreProductsThanLimit_whenListProductPage_thenReturnPageAndNextCursor() {
+		
+		// given
+		Product product2 = Product.builder()
+							.id(2L)
+							.category("categ-1")
+							.name("milk13")
+							.initialQuantity(100)
+							.remainingQuantity(100)
+							.pricePerUnit(new BigDecimal(10)).build();
+		
+		given(productRepository.findProductsAfter(0L, PageRequest.of(0, 2)))
+			.willReturn(List.of(product1, product2));
+		
+		// when
+		ProductPage page = productService.listProductPage(null, 1, null);
+		
+		// then
+		assertThat(page.getProducts().size()).isEqualTo(1);
+		assertThat(page.getNextCursor()).isEqualTo(product1.getId());
+	}
+	
+	@Test
+	void givenLastPage_whenListProductPage_thenReturnNoCursor() {
+		
+		// given
+		given(productRepository.findProductsByCategoryAfter("categ-1", 1L, PageRequest.of(0, 11)))
+			.willReturn(List.of(product1));
+		
+		// when
+		ProductPage page = productService.listProductPage(1L, 10, "categ-1");
+		
+		// then
+		assertThat(page.getProducts().size()).isEqualTo(1);
+		assertThat(page.getNextCursor()).isNull();
+	}
+	
 	@Test
 	void givenProductId_whenGetProductById_thenReturnProductObject() {
 		// given
@@ -133,7 +286,7 @@ class ProductServiceTest {
 		
 		// then
 		assertThat(optProd).isPresent();
-		
+	
 	} 
 	
 	@Test
@@ -143,7 +296,7 @@ class ProductServiceTest {
 		// given
 		given(productRepository.save(product1))
 			.willReturn(product1);
-
+		
 		product1.setCategory("cat12354");
 		
 		// when
@@ -159,13 +312,140 @@ class ProductServiceTest {
 		
 		// given
 		Long id = 1L;
-		willDoNothing().given(productRepository).deleteById(id);
+		given(productRepository.findByIdForUpdate(id)).willReturn(Optional.of(product1));
 		
 		// when
 		productService.deleteProductById(id);
 		
 		// then
-		verify(productRepository, times(1)).deleteById(id);
+		verify(productRepository, times(1)).delete(product1);
+		verify(productRepository, never()).deleteByIds(any());
+	
+	}
+	
+	@Test
+	void givenEnoughStock_whenDecreaseStock_thenDecrementsLockedEntity() {
+		
+		// given
+		Long id = 1L;
+		given(productRepository.findByIdForUpdate(id))
+			.willReturn(Optional.of(product1));
+		
+		// when
+		Optional<StockUpdateResult> result = productService.decreaseStock(id, 10);
+		
+		// then
+		assertThat(result).isPresent();
+		assertThat(result.get().isApplied()).isTrue();
+		assertThat(result.get().getRemainingQuantity()).isEqualTo(90);
+		assertThat(product1.getRemainingQuantity()).isEqualTo(90);
+	}
+	
+	@Test
+	void givenInsufficientStock_whenDecreaseStock_thenReturnNotAppliedResult() {
+		
+		// given
+		Long id = 1L;
+		product1.setRemainingQuantity(5);
+		given(productRepository.findByIdForUpdate(id))
+			.willReturn(Optional.of(product1));
+		
+		// when
+		Optional<StockUpdateResult> result = productService.decreaseStock(id, 10);
+		
+		// then
+		assertThat(result).isPresent();
+		assertThat(result.get().isApplied()).isFalse();
+		assertThat(result.get().getRemainingQuantity()).isEqualTo(5);
+		assertThat(product1.getRemainingQuantity()).isEqualTo(5);
+	}
+	
+	@Test
+	void givenExpectedVersion_whenPatchProduct_thenChangesLockedEntity() {
+		
+		// given
+		Long id = 1L;
+		product1.setVersion(3L);
+		ProductPatch patch = ProductPatch.builder().pricePerUnit(new BigDecimal(12)).version(3L).build();
+		given(productRepository.findByIdForUpdate(id))
+			.willReturn(Optional.of(product1));
+		
+		// when
+		PatchResult result = productService.patchProduct(id, patch);
+		
+		// then
+		assertThat(result.getStatus()).isEqualTo(PatchResult.Status.APPLIED);
+		assertThat(product1.getPricePerUnit()).isEqualTo(new BigDecimal(12));
+		verify(productRepository, times(1)).flush();
+		verify(productRepository, never()).bulkUpdate(any(), any());
+	}
+	
+	@Test
+	void givenStaleVersion_whenPatchProduct_thenReturnVersionConflict() {
+		
+		// given
+		Long id = 1L;
+		product1.setVersion(3L);
+		ProductPatch patch = ProductPatch.builder().remainingQuantity(10).version(2L).build();
+		given(productRepository.findByIdForUpdate(id))
+			.willReturn(Optional.of(product1));
+		
+		// when
+		PatchResult result = productService.patchProduct(id, patch);
+		
+		// then
+		assertThat(result.getStatus()).isEqualTo(PatchResult.Status.VERSION_CONFLICT);
+	}
+	
+	@Test
+	void givenCategory_whenBulkDeleteProducts_thenDeletesCategoryInOneStatement() {
+		
+		// given
+		given(productRepository.findIdsByCategoryForUpdate("categ-1"))
+			.willReturn(List.of(1L, 2L, 3L));
+		given(productRepository.deleteByCategory("categ-1"))
+			.willReturn(3);
+		
+		// when
+		int affected = productService.bulkDeleteProducts(ProductBulkDelete.builder().category("categ-1").build());
 		
+		// then
+		assertThat(affected).isEqualTo(3);
+		verify(productRepository, times(1)).deleteByCategory("categ-1");
+		verify(productRepository, never()).deleteByIds(any());
+		verify(productRepository, never()).deleteById(any());
+	}
+	
+	@Test
+	void givenCategory_whenBulkUpdateProducts_thenUpdatesCategoryInOneStatement() {
+		
+		// given
+		ProductBulkUpdate update = ProductBulkUpdate.builder().inCategory("categ-1").remainingQuantity(0).build();
+		given(productRepository.findIdsByCategoryForUpdate("categ-1"))
+			.willReturn(List.of(1L, 2L));
+		given(productRepository.bulkUpdateByCategory("categ-1", update))
+			.willReturn(2);
+		
+		// when
+		int affected = productService.bulkUpdateProducts(update);
+		
+		// then
+		assertThat(affected).isEqualTo(2);
+		verify(productRepository, never()).bulkUpdate(any(), any());
+	}
+	
+	@Test
+	void givenEmptyCategory_whenBulkDeleteProducts_thenNoStatement() {
+		
+		// given
+		given(productRepository.findIdsByCategoryForUpdate("categ-1"))
+			.willReturn(List.of());
+		
+		// when
+		int affected = productService.bulkDeleteProducts(ProductBulkDelete.builder().category("categ-1").build());
+		
+		// then
+		assertThat(affected).isZero();
+		verify(productRepository, never()).deleteByCategory(any());
 	}
 }